@@ -0,0 +1,76 @@
+package benchmarks;
+
+import models.Passenger;
+import models.Ticket;
+import models.Train;
+import org.openjdk.jmh.annotations.*;
+import services.SafeBookingService;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BookingService.bookTicket and SafeBookingService.safeBook on one hot train versus a fleet.
+ * Seats are released after each booking and history is cleared between iterations,
+ * so every iteration sees the same inventory and history size.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookingServiceBenchmark {
+
+    @Param({"hot", "fleet"})
+    public String scenario;
+
+    private SafeBookingService service;
+    private Train[] trains;
+
+    @State(Scope.Thread)
+    public static class Booker {
+        Passenger passenger;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            int id = ThreadLocalRandom.current().nextInt(1_000_000);
+            passenger = new Passenger(id, "Bench " + id, 0.0);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = new SafeBookingService();
+        int fleetSize = "hot".equals(scenario) ? 1 : 64;
+        trains = new Train[fleetSize];
+        for (int i = 0; i < fleetSize; i++) {
+            trains[i] = new Train(i + 1, "Bench " + (i + 1), 1000, 100.0);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void clearHistory() {
+        service.getBookingHistory().clear();
+    }
+
+    private Train pick() {
+        return trains.length == 1 ? trains[0] : trains[ThreadLocalRandom.current().nextInt(trains.length)];
+    }
+
+    @Benchmark
+    public Ticket bookTicket(Booker booker) throws Exception {
+        Train train = pick();
+        Ticket ticket = service.bookTicket(booker.passenger, train, 2, train.getPricePerSeat());
+        train.releaseSeats(ticket.getSeatNumbers());
+        return ticket;
+    }
+
+    @Benchmark
+    public Ticket safeBook(Booker booker) throws Exception {
+        Train train = pick();
+        Ticket ticket = service.safeBook(booker.passenger, train, 2, train.getPricePerSeat());
+        train.releaseSeats(ticket.getSeatNumbers());
+        return ticket;
+    }
+}
@@ -0,0 +1,49 @@
+package benchmarks;
+
+import models.Train;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Train.reserveSeats on one hot train versus a fleet.
+ * Each operation books and then releases the same seats, so inventory stays steady across iterations.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrainBenchmark {
+
+    @Param({"hot", "fleet"})
+    public String scenario;
+
+    @Param({"1000"})
+    public int seatsPerTrain;
+
+    private Train[] trains;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int fleetSize = "hot".equals(scenario) ? 1 : 64;
+        trains = new Train[fleetSize];
+        for (int i = 0; i < fleetSize; i++) {
+            trains[i] = new Train(i + 1, "Bench " + (i + 1), seatsPerTrain, 100.0);
+        }
+    }
+
+    private Train pick() {
+        return trains.length == 1 ? trains[0] : trains[ThreadLocalRandom.current().nextInt(trains.length)];
+    }
+
+    @Benchmark
+    public int[] reserveAndReleaseSeats() {
+        Train train = pick();
+        int[] seats = train.reserveSeats(2);
+        if (seats != null) train.releaseSeats(seats);
+        return seats;
+    }
+}
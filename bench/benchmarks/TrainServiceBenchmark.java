@@ -0,0 +1,41 @@
+package benchmarks;
+
+import models.Train;
+import org.openjdk.jmh.annotations.*;
+import services.TrainService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TrainService.getAvailableTrains over a small and a large fleet, roughly a tenth of
+ * which is sold out. Runs read-only, so any thread count can share one service.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrainServiceBenchmark {
+
+    @Param({"100", "10000"})
+    public int fleetSize;
+
+    private TrainService trainService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        trainService = new TrainService();
+        for (int i = 1; i <= fleetSize; i++) {
+            Train train = new Train(1_000 + i, "Bench " + i, 100, 50.0 + i % 500);
+            if (i % 10 == 0) train.bookSeats(100);
+            trainService.addTrain(train);
+        }
+    }
+
+    @Benchmark
+    public List<Train> getAvailableTrains() {
+        return trainService.getAvailableTrains();
+    }
+}
@@ -0,0 +1,50 @@
+#!/bin/bash
+set -euo pipefail
+
+# -------- Config --------
+JMH_CORE="libs/jmh-core-1.37.jar"
+JMH_APT="libs/jmh-generator-annprocess-1.37.jar"
+JOPT="libs/jopt-simple-5.0.4.jar"
+MATH3="libs/commons-math3-3.6.1.jar"
+JDBC_JAR="libs/sqlite-jdbc-3.45.3.0.jar"
+
+SRC_DIR="src"
+BENCH_DIR="bench"
+OUT_DIR="out-bench"
+RESULTS_DIR="bench/results"
+
+# Thread counts to run every benchmark at; extra arguments go straight to JMH
+THREADS="${THREADS:-1 4 16 64}"
+# ------------------------
+
+echo "Cleaning benchmark output..."
+rm -rf "$OUT_DIR"
+mkdir -p "$OUT_DIR" "$RESULTS_DIR"
+
+echo "Collecting sources..."
+# The UI is not benchmarked, so JavaFX is not needed here.
+{
+  find "$SRC_DIR" -type f -name "*.java" -not -path "$SRC_DIR/gui/*" -not -name "Main.java"
+  find "$BENCH_DIR" -type f -name "*.java"
+} | sort > bench-sources.txt
+
+echo "Compiling benchmarks..."
+javac \
+  -d "$OUT_DIR" \
+  -cp "$JMH_CORE:$JDBC_JAR" \
+  -processorpath "$JMH_APT:$JMH_CORE:$JOPT:$MATH3" \
+  -processor org.openjdk.jmh.generators.BenchmarkProcessor \
+  @bench-sources.txt
+
+CP="$OUT_DIR:$JMH_CORE:$JOPT:$MATH3:$JDBC_JAR"
+STAMP="$(date +%Y%m%d-%H%M%S)"
+
+for t in $THREADS; do
+  echo "Running benchmarks with $t thread(s)..."
+  java -cp "$CP" org.openjdk.jmh.Main \
+    -t "$t" \
+    -rf json -rff "$RESULTS_DIR/$STAMP-t$t.json" \
+    "$@"
+done
+
+echo "Results written to $RESULTS_DIR/ (compare runs to spot regressions)"
@@ -1,50 +1,18 @@
 import gui.BookingApp;
-import persistence.DatabaseHandler;
-import persistence.FileHandler;
-import persistence.TicketSerializer;
-import models.Passenger;
-import models.Ticket;
+import gui.StartupPipeline;
 import javafx.application.Application;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
- * Application entry point with serialization demo and JDBC initialization.
+ * Application entry point: starts the startup pipeline, then the JavaFX UI.
  */
 public class Main {
 
-    private static final List<Passenger> passengers = new ArrayList<>();
-    private static List<Ticket> tickets = new ArrayList<>();
-
     public static void main(String[] args) {
-        // Initialize SQLite database
-        DatabaseHandler.initializeDatabase();
-
-        // Load passengers from text file
-        FileHandler.loadPassengers(passengers, "output/passengers.txt");
-
-        // Load tickets from text file
-        List<Ticket> loaded = FileHandler.loadTickets("output/tickets.txt");
-        if (loaded != null) {
-            tickets = loaded;
-        }
-
-        // Demonstrate deserialization
-        List<Ticket> serializedTickets = TicketSerializer.loadSerialized("output/tickets.ser");
-        System.out.println("[Serialization] Previously saved tickets: " + serializedTickets.size());
+        // Database, journal recovery and file loads run in the background while JavaFX starts
+        StartupPipeline.shared();
 
-        // Register shutdown hook for persistence
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            // Save to text files
-            FileHandler.savePassengers(passengers, "output/passengers.txt");
-            FileHandler.saveTickets(tickets, "output/tickets.txt");
-            
-            // Demonstrate serialization
-            TicketSerializer.saveSerialized(tickets, "output/tickets.ser");
-            
-            System.out.println("[Shutdown] Data saved successfully (text + serialized).");
-        }));
+        // Nothing is rewritten on shutdown: the booking journal keeps the text files current
+        // and the binary ticket store (output/tickets.dat) is written as tickets are booked.
 
         // Launch JavaFX UI
         Application.launch(BookingApp.class, args);
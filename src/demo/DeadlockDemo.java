@@ -10,8 +10,11 @@ import services.BookingService;
 public class DeadlockDemo {
 
     public static void run(BookingService bookingService, Passenger p1, Train t1, Passenger p2, Train t2) {
-        System.out.println("[Deadlock] Demonstrating intentional deadlock (will appear stuck briefly)...");
+        // One thread holds t1 and wants t2, the other holds t2 and wants t1
+        System.out.println("[Deadlock] Demonstrating intentional deadlock between " + t1.getTrainName() + " and "
+                + t2.getTrainName() + " (stuck until the watchdog interrupts one thread)...");
         bookingService.simulateDeadlock(p1, t1, p2, t2, 1, t1.getPricePerSeat());
+        System.out.println("[Deadlock] Real bookings on both trains keep working: the demo deadlocks its own locks.");
 
         // In practice, avoid deadlocks by enforcing a lock order on shared resources.
         System.out.println("[Deadlock] Resolving by consistent lock ordering demonstrated in SafeBookingService.");
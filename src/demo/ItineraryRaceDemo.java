@@ -0,0 +1,113 @@
+package demo;
+
+import models.Passenger;
+import models.Ticket;
+import models.Train;
+import services.BookingRequest;
+import services.SafeBookingService;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Races itineraries that cross the same trains in opposite orders, the pattern that
+ * deadlocks in {@code BookingService.simulateDeadlock}, through
+ * {@link SafeBookingService#bookItinerary}. Fails if any thread is still stuck after
+ * the timeout, or if seats booked and seats left do not add up.
+ *
+ * Usage: java demo.ItineraryRaceDemo [threads] [itinerariesPerThread]
+ */
+public class ItineraryRaceDemo {
+
+    public static void main(String[] args) {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        if (!run(threads, rounds, 30)) System.exit(1);
+    }
+
+    public static boolean run(int threads, int rounds, int timeoutSeconds) {
+        SafeBookingService service = new SafeBookingService();
+        Train a = new Train(1, "Express A", 5_000, 120.0);
+        Train b = new Train(2, "Express B", 5_000, 150.0);
+        Train c = new Train(3, "Express C", 5_000, 90.0, List.of("Chennai", "Katpadi", "Bengaluru"));
+        Train[] fleet = {a, b, c};
+
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        System.out.println("[Itinerary] " + threads + " threads x " + rounds + " crossing itineraries");
+
+        for (int i = 0; i < threads; i++) {
+            final int idx = i;
+            Thread t = new Thread(() -> {
+                Passenger p = new Passenger(20_000 + idx, "Traveller " + idx, 0.0);
+                try {
+                    start.await();
+                    for (int r = 0; r < rounds; r++) {
+                        // Even threads go A -> B -> C, odd threads C -> B -> A: opposite lock orders if naive
+                        List<BookingRequest> legs = idx % 2 == 0
+                                ? List.of(leg(p, a), leg(p, b), new BookingRequest(p, c, "Chennai", "Katpadi", 1, 90.0))
+                                : List.of(new BookingRequest(p, c, "Katpadi", "Bengaluru", 1, 90.0), leg(p, b), leg(p, a));
+                        try {
+                            service.bookItinerary(legs);
+                            booked.incrementAndGet();
+                        } catch (Exception ex) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "Itinerary-" + idx);
+            t.setDaemon(true);
+            t.start();
+        }
+
+        start.countDown();
+        boolean finished;
+        try {
+            finished = done.await(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finished = false;
+        }
+        if (!finished) {
+            System.out.println("[Itinerary] FAILED: " + done.getCount() + " threads still blocked after "
+                    + timeoutSeconds + "s");
+            return false;
+        }
+
+        // Every successful itinerary holds exactly one seat per train (per leg on Express C)
+        boolean consistent = true;
+        for (Train t : fleet) {
+            long held = 0;
+            for (Ticket ticket : service.getBookingHistory()) {
+                if (ticket.getTrain() == t) held += ticket.getNumberOfSeats();
+            }
+            long expected = t == c ? 5_000L * 2 - t.getAvailableSeats(0, 1) - t.getAvailableSeats(1, 2)
+                    : t.getTotalSeats() - t.getAvailableSeats();
+            if (held != expected) {
+                System.out.println("[Itinerary] FAILED: " + t.getTrainName() + " history holds " + held
+                        + " seats, inventory says " + expected);
+                consistent = false;
+            }
+        }
+        if (service.getBookingHistory().size() != booked.get() * 3) {
+            System.out.println("[Itinerary] FAILED: partial itinerary recorded in history");
+            consistent = false;
+        }
+        System.out.println("[Itinerary] Finished — booked=" + booked.get() + ", rejected=" + rejected.get()
+                + ", tickets=" + service.getBookingHistory().size());
+        if (consistent) System.out.println("[Itinerary] OK: no hangs, no partial itineraries");
+        return consistent;
+    }
+
+    private static BookingRequest leg(Passenger p, Train train) {
+        return new BookingRequest(p, train, 1, train.getPricePerSeat());
+    }
+}
@@ -0,0 +1,96 @@
+package demo;
+
+import persistence.DatabaseHandler;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Times passenger inserts the old way (a fresh connection and statement per insert,
+ * default rollback journal) against {@link DatabaseHandler#insertPassenger} on the
+ * pooled, WAL-mode connections and against the batched write-behind queue.
+ * The legacy and pooled runs use separate scratch databases under output/.
+ *
+ * Usage: java demo.JdbcInsertRunner [inserts]
+ */
+public class JdbcInsertRunner {
+
+    private static final String LEGACY_DB = "output/jdbc-legacy.db";
+    private static final String POOLED_DB = "output/jdbc-pooled.db";
+
+    public static void main(String[] args) throws Exception {
+        int inserts = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        new File("output").mkdirs();
+        deleteDatabase(LEGACY_DB);
+        deleteDatabase(POOLED_DB);
+
+        long legacyNanos = runLegacy("jdbc:sqlite:" + LEGACY_DB, inserts);
+
+        // DatabaseHandler reads its URL once, on first use
+        System.setProperty("railway.db.url", "jdbc:sqlite:" + POOLED_DB);
+        DatabaseHandler.initializeDatabase();
+        PrintStream console = System.out;
+        long start = System.nanoTime();
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // per-insert log lines are not what we measure
+        try {
+            for (int i = 0; i < inserts; i++) {
+                DatabaseHandler.insertPassenger(i, "Passenger " + i);
+            }
+        } finally {
+            System.setOut(console);
+        }
+        long pooledNanos = System.nanoTime() - start;
+
+        // Write-behind: the caller only pays for the enqueue; batches commit in the background
+        start = System.nanoTime();
+        for (int i = 0; i < inserts; i++) {
+            DatabaseHandler.enqueuePassenger(inserts + i, "Passenger " + (inserts + i));
+        }
+        long enqueueNanos = System.nanoTime() - start;
+        DatabaseHandler.flushWrites();
+        long writeBehindNanos = System.nanoTime() - start;
+        DatabaseHandler.shutdown();
+
+        report("Per-call connection", inserts, legacyNanos);
+        report("Pooled + WAL", inserts, pooledNanos);
+        report("Write-behind enqueue", inserts, enqueueNanos);
+        report("Write-behind durable", inserts, writeBehindNanos);
+        System.out.printf("[JDBC] Speedup: %.1fx pooled, %.1fx write-behind%n",
+                (double) legacyNanos / pooledNanos, (double) legacyNanos / writeBehindNanos);
+    }
+
+    private static long runLegacy(String url, int inserts) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement st = conn.createStatement()) {
+            st.executeUpdate("CREATE TABLE IF NOT EXISTS passengers(id INTEGER PRIMARY KEY, name TEXT)");
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < inserts; i++) {
+            try (Connection conn = DriverManager.getConnection(url);
+                 PreparedStatement ps = conn.prepareStatement(
+                         "INSERT OR REPLACE INTO passengers(id, name) VALUES (?,?)")) {
+                ps.setInt(1, i);
+                ps.setString(2, "Passenger " + i);
+                ps.executeUpdate();
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String label, int inserts, long nanos) {
+        System.out.printf("[JDBC] %-20s %,d inserts in %,d ms (%.1f us/insert)%n",
+                label, inserts, nanos / 1_000_000, nanos / 1e3 / inserts);
+    }
+
+    private static void deleteDatabase(String path) {
+        for (String suffix : new String[] {"", "-wal", "-shm", "-journal"}) {
+            new File(path + suffix).delete();
+        }
+    }
+}
@@ -2,17 +2,107 @@ package demo;
 
 import models.Passenger;
 import models.Train;
+import monitoring.LatencyHistogram;
 import services.BookingService;
 
 import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Spawns multiple threads that try to book seats on the same train to prove synchronization.
+ *
+ * Also has a headless load-test mode ({@link #runLoad}) that drives the booking service
+ * with up to hundreds of thousands of virtual-thread bookers:
+ *
+ * java demo.MultiBookRunner [bookers] [arrivalsPerSec] [trains] [seatsPerTrain] [minSeats-maxSeats] [hotShare]
  */
 public class MultiBookRunner {
 
+    /**
+     * Headless load test on an in-memory fleet (no UI, no database).
+     */
+    public static void main(String[] args) {
+        int bookers = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        double rate = args.length > 1 ? Double.parseDouble(args[1]) : 0;
+        int trainCount = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int seatsPerTrain = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+        String[] seatRange = (args.length > 4 ? args[4] : "1-4").split("-");
+        double hotShare = args.length > 5 ? Double.parseDouble(args[5]) : 0.0;
+
+        List<Train> fleet = new ArrayList<>();
+        for (int i = 1; i <= trainCount; i++) {
+            fleet.add(new Train(i, "Load " + i, seatsPerTrain, 100.0 + i));
+        }
+        int minSeats = Integer.parseInt(seatRange[0]);
+        int maxSeats = Integer.parseInt(seatRange[seatRange.length - 1]);
+        runLoad(new BookingService(), fleet, bookers, rate, minSeats, maxSeats, hotShare);
+    }
+
+    /**
+     * Launches {@code bookers} virtual threads, each making one booking, and reports
+     * throughput and latency percentiles.
+     *
+     * @param arrivalsPerSecond open-loop arrival rate; 0 or less releases every booker at once.
+     *                          Latency is measured from each booker's scheduled arrival, so a
+     *                          saturated service shows up as queueing delay rather than being hidden.
+     * @param hotShare          fraction of bookers (0-1) sent to the first train; the rest are
+     *                          spread uniformly over the fleet
+     */
+    public static LatencyHistogram runLoad(BookingService bookingService, List<Train> trains, int bookers,
+                                           double arrivalsPerSecond, int minSeats, int maxSeats, double hotShare) {
+        System.out.println("[Load] " + bookers + " bookers over " + trains.size() + " trains, rate="
+                + (arrivalsPerSecond > 0 ? arrivalsPerSecond + "/s" : "burst")
+                + ", seats " + minSeats + "-" + maxSeats + ", hot share " + hotShare);
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        LongAdder booked = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        double intervalNanos = arrivalsPerSecond > 0 ? 1_000_000_000.0 / arrivalsPerSecond : 0;
+
+        long begin = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < bookers; i++) {
+                long scheduled = begin + (long) (i * intervalNanos);
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) LockSupport.parkNanos(wait);
+
+                final int idx = i + 1;
+                executor.execute(() -> {
+                    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                    Train train = rnd.nextDouble() < hotShare
+                            ? trains.get(0) : trains.get(rnd.nextInt(trains.size()));
+                    int seats = rnd.nextInt(minSeats, maxSeats + 1);
+                    Passenger p = new Passenger(100_000 + idx, "L" + idx, 0.0);
+                    try {
+                        bookingService.bookTicket(p, train, seats, train.getPricePerSeat());
+                        booked.increment();
+                    } catch (Exception ex) {
+                        rejected.increment();
+                    } finally {
+                        histogram.record(System.nanoTime() - scheduled);
+                    }
+                });
+            }
+        } // close() waits for every booker to finish
+        long elapsed = System.nanoTime() - begin;
+
+        double seconds = elapsed / 1e9;
+        System.out.printf("[Load] Done in %.2f s — booked=%d, rejected=%d, throughput=%.0f bookings/s%n",
+                seconds, booked.sum(), rejected.sum(), histogram.getCount() / seconds);
+        System.out.printf("[Load] Latency (us): p50=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+                histogram.percentile(50) / 1e3, histogram.percentile(99) / 1e3,
+                histogram.percentile(99.9) / 1e3, histogram.getMax() / 1e3);
+        return histogram;
+    }
+
     public static void run(BookingService bookingService, Train train, int threads, int seatsPerThread, double pricePerSeat) {
         System.out.println("[Concurrency] Start — Train " + train.getTrainName() + " available=" + train.getAvailableSeats());
         CountDownLatch latch = new CountDownLatch(threads);
@@ -0,0 +1,115 @@
+package demo;
+
+import models.Train;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hammers a single train's lock-free seat counter from many threads and checks
+ * that it is never oversold, never exceeds its capacity, and agrees with the seat map.
+ * Each thread releases the exact seats of the bookings it holds, so a seat handed out
+ * twice leaves the counter short when its second holder releases it.
+ *
+ * Usage: java demo.SeatStressRunner [threads] [opsPerThread] [backoff]
+ */
+public class SeatStressRunner {
+
+    public static void main(String[] args) {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int ops = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        boolean backoff = args.length > 2 && Boolean.parseBoolean(args[2]);
+
+        boolean ok = run(new Train(1, "Stress Express", 500, 100.0), threads, ops, backoff);
+        if (!ok) System.exit(1);
+    }
+
+    /**
+     * Runs the stress test and returns true if every invariant held.
+     */
+    public static boolean run(Train train, int threads, int opsPerThread, boolean backoff) {
+        train.setContentionBackoff(backoff);
+        int total = train.getTotalSeats();
+        System.out.println("[Stress] " + threads + " threads x " + opsPerThread + " ops on "
+                + train.getTrainName() + " (capacity " + total + ", backoff=" + backoff + ")");
+
+        AtomicLong netBooked = new AtomicLong();
+        AtomicBoolean violated = new AtomicBoolean(false);
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        // Observer: availability must stay within [0, totalSeats] at every instant
+        Thread observer = new Thread(() -> {
+            while (running.get()) {
+                int seen = train.getAvailableSeats();
+                if (seen < 0 || seen > total) {
+                    System.out.println("[Stress] Observed out-of-range availability: " + seen);
+                    violated.set(true);
+                }
+            }
+        }, "Stress-Observer");
+        observer.setDaemon(true);
+        observer.start();
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                Deque<int[]> tickets = new ArrayDeque<>(); // seat numbers of each booking still held
+                long held = 0;
+                try {
+                    start.await();
+                    for (int n = 0; n < opsPerThread; n++) {
+                        if (!tickets.isEmpty() && rnd.nextBoolean()) {
+                            int[] seats = tickets.poll();
+                            train.releaseSeats(seats);
+                            held -= seats.length;
+                        } else {
+                            int[] seats = train.reserveSeats(rnd.nextInt(1, 5));
+                            if (seats != null) {
+                                tickets.add(seats);
+                                held += seats.length;
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    netBooked.addAndGet(held);
+                    done.countDown();
+                }
+            }, "Stress-" + (i + 1)).start();
+        }
+
+        start.countDown();
+        try { done.await(); } catch (InterruptedException ignored) {}
+        running.set(false);
+        long millis = (System.nanoTime() - begin) / 1_000_000;
+
+        int available = train.getAvailableSeats();
+        boolean balanced = available == total - netBooked.get();
+        int freeInMap = 0;
+        for (int seat = 1; seat <= total; seat++) {
+            if (train.isSeatFree(seat)) freeInMap++;
+        }
+        System.out.println("[Stress] Finished in " + millis + " ms — available=" + available
+                + ", held by threads=" + netBooked.get());
+        if (!balanced) {
+            System.out.println("[Stress] FAILED: available + held != capacity");
+        }
+        if (freeInMap != available) {
+            System.out.println("[Stress] FAILED: seat map has " + freeInMap + " free seats, counter says " + available);
+        }
+        if (violated.get()) {
+            System.out.println("[Stress] FAILED: availability left [0, " + total + "]");
+        }
+        boolean ok = balanced && freeInMap == available && !violated.get();
+        if (ok) System.out.println("[Stress] OK: never oversold, never above capacity");
+        return ok;
+    }
+}
@@ -2,24 +2,77 @@ package gui;
 
 import gui.layout.MainLayout;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.ButtonType;
 import javafx.stage.Stage;
+import monitoring.DeadlockWatchdog;
+import persistence.BookingJournal;
+import persistence.DatabaseHandler;
+import persistence.InventoryRecovery;
+import persistence.JournalCompactor;
+import persistence.TicketStore;
+import services.BookingPipeline;
 import services.BookingService;
 import services.PassengerService;
 import services.TrainService;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletionException;
+
 /**
  * Application entry for the split UI composition.
  */
 public class BookingApp extends Application {
 
+    private BookingJournal journal;
+    private JournalCompactor compactor;
+    private TicketStore ticketStore;
+    private BookingPipeline bookingPipeline;
+
     @Override
     public void start(Stage primaryStage) {
-        TrainService trainService = new TrainService();
-        PassengerService passengerService = new PassengerService();
+        StartupPipeline startup = StartupPipeline.shared();
+        // The window needs trains and passengers; the journal and store must be open before the first booking
+        TrainService trainService = startup.trains().join();
+        PassengerService passengerService = startup.passengers().join();
+        journal = startup.journal().join();
+        ticketStore = startup.ticketStore().join();
+
         BookingService bookingService = new BookingService();
+        BookingService.setTicketIdAllocator(DatabaseHandler.ticketIdAllocator());
+        if (ticketStore != null) {
+            // Covers a database that was reset or lost its last reservation
+            BookingService.advanceTicketIds(ticketStore.getHighestTicketId());
+        }
+        if (journal != null) {
+            compactor = new JournalCompactor(journal, Path.of("output/tickets.txt"),
+                    Path.of("output/passengers.txt"), 60_000, 1 << 20);
+            compactor.start();
+        }
+        bookingService.setTicketSink(batch -> {
+            if (journal != null) {
+                try {
+                    journal.appendTickets(batch);
+                } catch (IOException e) {
+                    System.err.println("[Journal] Could not journal " + batch.size() + " tickets: " + e.getMessage());
+                }
+            }
+            if (ticketStore != null) {
+                try {
+                    ticketStore.putAll(batch);
+                } catch (IOException e) {
+                    System.err.println("[TicketStore] Could not store " + batch.size() + " tickets: " + e.getMessage());
+                }
+            }
+            DatabaseHandler.enqueueTickets(batch);
+        });
+        new DeadlockWatchdog(1000, true).start();
 
-        MainLayout root = new MainLayout(trainService, passengerService, bookingService);
+        bookingPipeline = new BookingPipeline();
+        MainLayout root = new MainLayout(trainService, passengerService, bookingService, bookingPipeline);
 
         Scene scene = new Scene(root.getRoot(), 1080, 640);
         scene.getStylesheets().add("file:resources/css/app.css");
@@ -27,6 +80,59 @@ public class BookingApp extends Application {
         primaryStage.setTitle("Railway Reservation System");
         primaryStage.setScene(scene);
         primaryStage.show();
+        System.out.println("[Startup] Window shown at +" + startup.elapsedMillis() + " ms");
+
+        // Seats sold before the restart are not free until recovery replays them
+        root.setBookingEnabled(false);
+        startup.recovery().whenComplete((recovered, error) -> Platform.runLater(() ->
+                onRecovery(startup, root, bookingService, recovered, error)));
+    }
+
+    // On failure the user retries or books knowing that seats sold before the restart may be sold again
+    private void onRecovery(StartupPipeline startup, MainLayout root, BookingService bookingService,
+                            InventoryRecovery recovered, Throwable error) {
+        if (error == null) {
+            bookingService.restoreHistory(recovered.getTickets());
+            root.reloadHistory();
+            root.setBookingEnabled(true);
+            return;
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        System.err.println("[Startup] Seat availability could not be recovered: " + cause);
+
+        ButtonType retry = new ButtonType("Retry");
+        ButtonType bookAnyway = new ButtonType("Book without recovery");
+        Alert alert = new Alert(Alert.AlertType.ERROR,
+                "Seats sold before the restart could not be restored (" + cause.getMessage() + ").\n\n"
+                        + "Retry, or take bookings now; seats sold before the restart may then be sold again.",
+                retry, bookAnyway);
+        alert.setTitle("Recovery failed");
+        alert.setHeaderText("Booking is paused");
+        if (alert.showAndWait().orElse(retry) == retry) {
+            startup.retryRecovery().whenComplete((again, retryError) -> Platform.runLater(() ->
+                    onRecovery(startup, root, bookingService, again, retryError)));
+        } else {
+            System.err.println("[Startup] Booking enabled without recovered seat availability");
+            root.showNotice("Seats sold before the restart were not restored");
+            root.setBookingEnabled(true);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (bookingPipeline != null) {
+            bookingPipeline.close(); // bookings in flight still reach the journal and store
+        }
+        if (compactor != null) {
+            compactor.shutdown();
+        }
+        if (ticketStore != null) {
+            try {
+                ticketStore.close();
+            } catch (IOException e) {
+                System.err.println("[TicketStore] Close failed: " + e.getMessage());
+            }
+        }
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,191 @@
+package gui;
+
+import models.Passenger;
+import models.Ticket;
+import models.Train;
+import persistence.BookingJournal;
+import persistence.DatabaseHandler;
+import persistence.FileHandler;
+import persistence.InventoryRecovery;
+import persistence.JournalCompactor;
+import persistence.TicketSerializer;
+import persistence.TicketStore;
+import services.PassengerService;
+import services.TrainService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Application startup as a graph of phases that run in parallel where they can:
+ *
+ * <pre>
+ *   database ──► trains ─────────┐
+ *   journal fold ─► passengers ──┴─► history ─► recovery
+ *                └► journal
+ *   ticket store
+ * </pre>
+ *
+ * Main starts it before the JavaFX toolkit, so loading overlaps toolkit start-up.
+ * BookingApp waits only for the phases the window needs; booking stays disabled until
+ * recovery has put every persisted ticket's seats back on its train.
+ *
+ * Every phase logs its duration and when it finished relative to the start.
+ */
+public class StartupPipeline {
+
+    private static StartupPipeline shared;
+
+    private final long startNanos = System.nanoTime();
+    private final ExecutorService executor;
+
+    private final CompletableFuture<Void> database;
+    private final CompletableFuture<Void> journalFold;
+    private final CompletableFuture<TrainService> trains;
+    private final CompletableFuture<PassengerService> passengers;
+    private final CompletableFuture<List<Ticket>> history;
+    private final CompletableFuture<InventoryRecovery> recovery;
+    private final CompletableFuture<BookingJournal> journal;
+    private final CompletableFuture<TicketStore> ticketStore;
+
+    private StartupPipeline() {
+        AtomicInteger threadId = new AtomicInteger();
+        // Phases mostly wait on disk and SQLite, so use enough threads for every independent branch
+        executor = Executors.newFixedThreadPool(4, r -> {
+            Thread t = new Thread(r, "Startup-" + threadId.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        database = phase("database", () -> {
+            DatabaseHandler.initializeDatabase();
+            return null;
+        });
+        journalFold = phase("journal fold", () -> {
+            foldJournal();
+            return null;
+        });
+        ticketStore = phase("ticket store", StartupPipeline::openTicketStore);
+        trains = phase("trains", TrainService::new, database);
+        passengers = phase("passengers", StartupPipeline::loadPassengers, journalFold);
+        journal = phase("journal", StartupPipeline::openJournal, journalFold);
+        history = phase("history", this::loadHistory, trains, passengers);
+        recovery = phase("recovery", () -> replay(history.join()), history);
+
+        CompletableFuture.allOf(database, journalFold, ticketStore, trains, passengers, journal, history, recovery)
+                .whenComplete((v, e) -> {
+                    executor.shutdown();
+                    System.out.println("[Startup] All phases finished at +" + elapsedMillis() + " ms");
+                });
+    }
+
+    /**
+     * The pipeline for this process, started on first call.
+     */
+    public static synchronized StartupPipeline shared() {
+        if (shared == null) {
+            shared = new StartupPipeline();
+        }
+        return shared;
+    }
+
+    public CompletableFuture<TrainService> trains() { return trains; }
+    public CompletableFuture<PassengerService> passengers() { return passengers; }
+    public CompletableFuture<List<Ticket>> history() { return history; }
+    public CompletableFuture<InventoryRecovery> recovery() { return recovery; }
+    public CompletableFuture<BookingJournal> journal() { return journal; }
+    public CompletableFuture<TicketStore> ticketStore() { return ticketStore; }
+
+    /**
+     * Loads the history and replays it again, e.g. after {@link #recovery()} failed. Tickets
+     * with seat numbers restore the same seats, so seats already replayed are not taken twice;
+     * a ticket from before seat numbers may take a second set, which over-reserves but never
+     * oversells.
+     */
+    public CompletableFuture<InventoryRecovery> retryRecovery() {
+        // The startup executor is shut down once every phase has finished
+        return CompletableFuture.supplyAsync(() -> replay(loadHistory()),
+                r -> Thread.ofVirtual().name("Startup-recovery-retry").start(r));
+    }
+
+    public long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private <T> CompletableFuture<T> phase(String name, Supplier<T> work, CompletableFuture<?>... after) {
+        return CompletableFuture.allOf(after).thenApplyAsync(v -> {
+            long start = System.nanoTime();
+            T result = work.get();
+            System.out.println("[Startup] " + name + ": " + (System.nanoTime() - start) / 1_000_000
+                    + " ms (done at +" + elapsedMillis() + " ms)");
+            return result;
+        }, executor);
+    }
+
+    private List<Ticket> loadHistory() {
+        return FileHandler.loadTickets("output/tickets.txt",
+                trains.join()::getTrainById, passengers.join()::resolvePassenger);
+    }
+
+    private InventoryRecovery replay(List<Ticket> tickets) {
+        InventoryRecovery result = InventoryRecovery.replay(tickets);
+        Set<Train> changed = new LinkedHashSet<>(result.getTrains());
+        changed.addAll(result.crossCheck(trains.join().getAllTrains(), DatabaseHandler.loadAvailability()));
+        DatabaseHandler.enqueueAvailability(changed);
+        return result;
+    }
+
+    // Segments left by a crash go into the snapshot before anything reads it or a new journal opens
+    private static void foldJournal() {
+        try {
+            JournalCompactor.foldPending(Path.of("output"), Path.of("output/tickets.txt"), Path.of("output/passengers.txt"));
+        } catch (IOException e) {
+            System.err.println("[Journal] Could not fold pending journal: " + e.getMessage());
+        }
+    }
+
+    private static PassengerService loadPassengers() {
+        PassengerService passengerService = new PassengerService();
+        List<Passenger> loaded = new ArrayList<>();
+        FileHandler.loadPassengers(loaded, "output/passengers.txt");
+        passengerService.addPassengersIfAbsent(loaded);
+        return passengerService;
+    }
+
+    // Bookings are journaled as they happen and folded into output/*.txt in the background
+    private static BookingJournal openJournal() {
+        try {
+            return BookingJournal.open(Path.of("output"));
+        } catch (IOException e) {
+            System.err.println("[Journal] Could not open booking journal: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Fixed-width binary copy of every ticket; tickets.ser from older versions is imported once
+    private static TicketStore openTicketStore() {
+        try {
+            TicketStore store = TicketStore.open(Path.of("output/tickets.dat"));
+            if (store.size() == 0 && Files.exists(Path.of("output/tickets.ser"))) {
+                List<Ticket> legacy = TicketSerializer.loadSerialized("output/tickets.ser");
+                store.putAll(legacy);
+                System.out.println("[TicketStore] Imported " + legacy.size() + " tickets from tickets.ser");
+            }
+            System.out.println("[TicketStore] " + store.size() + " tickets in output/tickets.dat");
+            return store;
+        } catch (IOException e) {
+            System.err.println("[TicketStore] Could not open ticket store: " + e.getMessage());
+            return null;
+        }
+    }
+}
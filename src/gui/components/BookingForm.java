@@ -100,6 +100,20 @@ public class BookingForm {
         updateTotal();
     }
 
+    // While bookings run the button is disabled; the fields stay editable for the next one
+    public void setPending(boolean pending) {
+        bookButton.setDisable(pending);
+        bookButton.setText(pending ? "Booking..." : "Book Ticket");
+    }
+
+    // Clears the form after a booking, unless the user has started typing the next one
+    public void clearIfUnchanged(String name, int seats) {
+        String currentName = nameField.getText() == null ? "" : nameField.getText().trim();
+        if (currentName.equals(name) && seatsProperty.get() == seats) {
+            clear();
+        }
+    }
+
     // Expose seats text for external listeners (so parent can update totals in real time)
     public StringProperty seatsTextProperty() {
         return seatsField.textProperty();
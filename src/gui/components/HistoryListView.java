@@ -0,0 +1,123 @@
+package gui.components;
+
+import javafx.scene.control.Button;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import models.Ticket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Booking history, newest first, in a virtualized ListView.
+ *
+ * The view reads the booking history list by index and never copies it. It shows one page
+ * of the newest tickets, adds tickets booked since at the top, and loads older pages when
+ * asked. The filter matches train or passenger names and IDs, and is applied while scanning.
+ * Call from the FX thread only.
+ */
+public class HistoryListView {
+    private static final int PAGE_SIZE = 200;
+
+    private final ListView<Ticket> list = new ListView<>();
+    private final TextField filterField = new TextField();
+    private final Button olderButton = new Button("Show older bookings");
+    private final VBox root = new VBox(8, filterField, list, olderButton);
+
+    private List<Ticket> history = List.of();
+    private Predicate<Ticket> filter = t -> true;
+    // History positions: everything below seenUpTo has been considered; older pages resume below olderFrom
+    private int seenUpTo;
+    private int olderFrom;
+
+    public HistoryListView() {
+        list.getStyleClass().add("history-area");
+        list.setPrefHeight(180);
+        VBox.setVgrow(list, Priority.ALWAYS);
+
+        filterField.setPromptText("Filter by train or passenger");
+        filterField.textProperty().addListener((obs, o, n) -> {
+            filter = matcher(n.trim());
+            reload();
+        });
+
+        olderButton.setMaxWidth(Double.MAX_VALUE);
+        olderButton.setOnAction(e -> loadOlder());
+    }
+
+    public VBox getRoot() { return root; }
+
+    /**
+     * Shows the given history (oldest first, as BookingService keeps it) from its newest page.
+     */
+    public void setHistory(List<Ticket> history) {
+        this.history = history;
+        reload();
+    }
+
+    /**
+     * Adds tickets booked since the last call to the top of the list.
+     */
+    public void showNewTickets() {
+        int size = history.size();
+        if (size <= seenUpTo) return;
+        List<Ticket> added = new ArrayList<>();
+        for (int i = size - 1; i >= seenUpTo; i--) {
+            Ticket t = history.get(i);
+            if (filter.test(t)) added.add(t);
+        }
+        seenUpTo = size;
+        list.getItems().addAll(0, added);
+    }
+
+    private void reload() {
+        seenUpTo = history.size();
+        olderFrom = seenUpTo;
+        list.getItems().clear();
+        loadOlder();
+        list.scrollTo(0);
+    }
+
+    // Scans back from olderFrom until a page of matches is found or the history runs out
+    private void loadOlder() {
+        List<Ticket> page = new ArrayList<>(PAGE_SIZE);
+        int i = olderFrom - 1;
+        for (; i >= 0 && page.size() < PAGE_SIZE; i--) {
+            Ticket t = history.get(i);
+            if (filter.test(t)) page.add(t);
+        }
+        olderFrom = i + 1;
+        list.getItems().addAll(page);
+        olderButton.setDisable(olderFrom == 0);
+    }
+
+    // Case-insensitive match on train or passenger name, or an exact train or passenger ID
+    private static Predicate<Ticket> matcher(String text) {
+        if (text.isEmpty()) return t -> true;
+        int id = parseId(text);
+        return t -> t.getTrain().getTrainId() == id
+                || t.getPassenger().getPassengerId() == id
+                || containsIgnoreCase(t.getTrain().getTrainName(), text)
+                || containsIgnoreCase(t.getPassenger().getName(), text);
+    }
+
+    // Allocation-free, since a filter may be tested against the whole history
+    private static boolean containsIgnoreCase(String s, String needle) {
+        if (s == null) return false;
+        for (int i = 0; i + needle.length() <= s.length(); i++) {
+            if (s.regionMatches(true, i, needle, 0, needle.length())) return true;
+        }
+        return false;
+    }
+
+    private static int parseId(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            return Integer.MIN_VALUE;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package gui.components;
+
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Train logos by train ID, shared by every train row.
+ *
+ * Logos are decoded at display size on background virtual threads and kept in an LRU map
+ * bounded by decoded size, {@code railway.logos.cacheMB} (default 128 MB). A 42 px logo
+ * takes about 7 KB, so the default holds a whole fleet of over 10,000 trains. Trains without
+ * a logo file are remembered, and use the fallback {@code train.png}, which is decoded once
+ * when the cache is created. Once the cache is warm, redraws and scrolling read no files.
+ *
+ * Call from the FX thread only; decode results are handed back to it.
+ */
+final class LogoCache {
+    static final double LOGO_SIZE = 42;
+
+    private static final LogoCache SHARED = new LogoCache(Path.of("resources/logos"),
+            Long.getLong("railway.logos.cacheMB", 128) << 20);
+
+    private final Path directory;
+    private final long maxBytes;
+    private final ExecutorService decoder =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("LogoDecoder-", 0).factory());
+
+    // FX thread only
+    private final Map<Integer, Image> logos = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+    private final Set<Integer> withoutLogo = new HashSet<>();
+    private final Map<Integer, List<Consumer<Image>>> loading = new HashMap<>();
+
+    // Null only if train.png is missing
+    private final Image fallback;
+
+    private LogoCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.fallback = decode(directory.resolve("train.png"));
+    }
+
+    static LogoCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * The train's logo if it is cached, otherwise the fallback logo as a placeholder. On a
+     * miss the logo is decoded in the background and passed to {@code onLoaded} on the FX thread.
+     */
+    Image get(int trainId, Consumer<Image> onLoaded) {
+        Image logo = logos.get(trainId);
+        if (logo != null) return logo;
+        if (withoutLogo.contains(trainId)) return fallback;
+
+        List<Consumer<Image>> waiting = loading.get(trainId);
+        if (waiting == null) {
+            waiting = new ArrayList<>(1);
+            loading.put(trainId, waiting);
+            decoder.execute(() -> {
+                Image decoded = decode(directory.resolve(trainId + ".png"));
+                Platform.runLater(() -> loaded(trainId, decoded));
+            });
+        }
+        waiting.add(onLoaded);
+        return fallback;
+    }
+
+    private void loaded(int trainId, Image decoded) {
+        if (decoded != null) cache(trainId, decoded);
+        else withoutLogo.add(trainId);
+
+        List<Consumer<Image>> waiting = loading.remove(trainId);
+        Image shown = decoded != null ? decoded : fallback;
+        if (waiting != null) {
+            for (Consumer<Image> callback : waiting) callback.accept(shown);
+        }
+    }
+
+    // Adds the logo, then evicts least recently used ones until the cache fits again
+    private void cache(int trainId, Image logo) {
+        Image replaced = logos.put(trainId, logo);
+        if (replaced != null) cachedBytes -= bytes(replaced);
+        cachedBytes += bytes(logo);
+        Iterator<Image> eldest = logos.values().iterator();
+        while (cachedBytes > maxBytes && logos.size() > 1) {
+            cachedBytes -= bytes(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    // Decoded size as 32-bit pixels
+    private static long bytes(Image image) {
+        return (long) image.getWidth() * (long) image.getHeight() * 4;
+    }
+
+    // Null if the file is missing or not a readable image
+    private static Image decode(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            Image image = new Image(in, LOGO_SIZE, LOGO_SIZE, true, true);
+            return image.isError() ? null : image;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("[Logos] Could not read " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
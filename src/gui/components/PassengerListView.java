@@ -10,7 +10,9 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import models.Passenger;
+import services.NameIndex;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -37,6 +39,14 @@ public class PassengerListView {
         list.getItems().setAll(passengers);
     }
 
+    /**
+     * Inserts one passenger at its place in name order.
+     */
+    public void add(Passenger passenger) {
+        int at = Collections.binarySearch(list.getItems(), passenger, NameIndex.ORDER);
+        list.getItems().add(at < 0 ? -at - 1 : at, passenger);
+    }
+
     private static class PassengerRowCell extends ListCell<Passenger> {
         private final HBox root = new HBox(14);
         private final StackPane avatar = new StackPane();
@@ -39,4 +39,11 @@ public class TrainListView {
     public void setItems(List<Train> trains) {
         list.getItems().setAll(trains);
     }
+
+    /**
+     * Redraws the visible rows, e.g. after seat counts changed.
+     */
+    public void refreshRows() {
+        list.refresh();
+    }
 }
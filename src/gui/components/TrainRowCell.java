@@ -4,13 +4,10 @@ import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListCell;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.*;
 import models.Train;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.text.NumberFormat;
 
 /**
@@ -30,8 +27,8 @@ class TrainRowCell extends ListCell<Train> {
     TrainRowCell(NumberFormat currencyFmt) {
         this.currencyFmt = currencyFmt;
 
-        logoView.setFitWidth(42);
-        logoView.setFitHeight(42);
+        logoView.setFitWidth(LogoCache.LOGO_SIZE);
+        logoView.setFitHeight(LogoCache.LOGO_SIZE);
         logoView.setPreserveRatio(true);
         logoView.setSmooth(true);
 
@@ -57,7 +54,12 @@ class TrainRowCell extends ListCell<Train> {
             return;
         }
 
-        logoView.setImage(loadLogo(train.getTrainId()));
+        int trainId = train.getTrainId();
+        logoView.setImage(LogoCache.shared().get(trainId, logo -> {
+            // The cell may show another train by the time the logo is decoded
+            Train shown = getItem();
+            if (shown != null && shown.getTrainId() == trainId) logoView.setImage(logo);
+        }));
         title.setText(train.getTrainName());
         subtitle.setText("Remaining: " + train.getAvailableSeats());
         price.setText(currencyFmt.format(train.getPricePerSeat()));
@@ -65,18 +67,4 @@ class TrainRowCell extends ListCell<Train> {
         setGraphic(root);
         setText(null);
     }
-
-    private Image loadLogo(int trainId) {
-        String specific = "resources/logos/" + trainId + ".png";
-        String fallback = "resources/logos/train.png";
-        try {
-            return new Image(new FileInputStream(specific));
-        } catch (FileNotFoundException e1) {
-            try {
-                return new Image(new FileInputStream(fallback));
-            } catch (FileNotFoundException e2) {
-                return null;
-            }
-        }
-    }
 }
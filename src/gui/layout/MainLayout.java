@@ -1,19 +1,21 @@
 package gui.layout;
 
 import gui.components.BookingForm;
+import gui.components.HistoryListView;
 import gui.components.PassengerListView;
 import gui.components.TrainListView;
 import gui.components.Snackbar;
 import demo.DeadlockDemo;
 import demo.MultiBookRunner;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import models.Passenger;
-import models.Ticket;
+import models.SeatChange;
 import models.Train;
 import persistence.DatabaseHandler;
-import persistence.FileHandler;
+import services.BookingPipeline;
 import services.BookingService;
 import services.PassengerService;
 import services.TrainService;
@@ -21,6 +23,8 @@ import services.TrainService;
 import java.text.NumberFormat;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -29,28 +33,43 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public class MainLayout {
 
+    private static final int PASSENGER_SEARCH_LIMIT = 500;
+
     private final BorderPane root = new BorderPane();
 
     private final TrainService trainService;
     private final PassengerService passengerService;
     private final BookingService bookingService;
+    private final BookingPipeline bookingPipeline;
 
     private TrainListView trainList;
     private PassengerListView passengerList;
     private BookingForm bookingForm;
+    private MenuBar menuBar;
+    private VBox bookingCard;
 
-    private final TextArea historyArea = new TextArea();
+    private final HistoryListView historyView = new HistoryListView();
+    private final Label notice = new Label();
+    private final TextField passengerSearch = new TextField();
     private final NumberFormat currencyFmt = NumberFormat.getCurrencyInstance(new Locale("en", "IN"));
-    private final AtomicInteger passengerIdSeq = new AtomicInteger(1000);
+    private final AtomicInteger passengerIdSeq;
 
-    public MainLayout(TrainService trainService, PassengerService passengerService, BookingService bookingService) {
+    public MainLayout(TrainService trainService, PassengerService passengerService, BookingService bookingService,
+                      BookingPipeline bookingPipeline) {
         this.trainService = trainService;
         this.passengerService = passengerService;
         this.bookingService = bookingService;
+        this.bookingPipeline = bookingPipeline;
+
+        // New passenger IDs continue after any passengers restored from disk
+        this.passengerIdSeq = new AtomicInteger(Math.max(999, passengerService.getHighestPassengerId()) + 1);
 
         build();
         wire();
-        refreshAll();
+        trainList.setItems(trainService.getAllTrains());
+        showPassengers();
+        historyView.setHistory(bookingService.getBookingHistory());
+        subscribeToSeatChanges();
     }
 
     public BorderPane getRoot() {
@@ -59,14 +78,18 @@ public class MainLayout {
 
     private void build() {
         // Demo menu bar
-        MenuBar menuBar = createDemoMenu();
+        menuBar = createDemoMenu();
         
         // App bar
         HBox appBar = new HBox();
         appBar.getStyleClass().add("app-bar");
         Label title = new Label("Railway Reservation System");
         title.getStyleClass().add("app-title");
-        appBar.getChildren().add(title);
+        Region appBarSpacer = new Region();
+        HBox.setHgrow(appBarSpacer, Priority.ALWAYS);
+        notice.setStyle("-fx-text-fill: #b3261e; -fx-font-weight: 700;");
+        notice.setVisible(false);
+        appBar.getChildren().addAll(title, appBarSpacer, notice);
         
         // Combine menu and app bar
         VBox topContainer = new VBox(menuBar, appBar);
@@ -93,11 +116,7 @@ public class MainLayout {
         Label historyLabel = new Label("Booking History");
         historyLabel.getStyleClass().add("section-title");
 
-        historyArea.setEditable(false);
-        historyArea.setPrefHeight(180);
-        historyArea.getStyleClass().add("history-area");
-
-        VBox historyCard = new VBox(12, historyLabel, historyArea);
+        VBox historyCard = new VBox(12, historyLabel, historyView.getRoot());
         historyCard.getStyleClass().add("card");
         historyCard.setPadding(new Insets(14));
 
@@ -113,7 +132,10 @@ public class MainLayout {
 
         passengerList = new PassengerListView();
 
-        VBox paxCard = new VBox(12, paxLabel, passengerList.getView());
+        passengerSearch.setPromptText("Search by name");
+        passengerSearch.textProperty().addListener((obs, o, n) -> showPassengers());
+
+        VBox paxCard = new VBox(12, paxLabel, passengerSearch, passengerList.getView());
         paxCard.getStyleClass().add("card");
         paxCard.setPadding(new Insets(14));
 
@@ -137,7 +159,7 @@ public class MainLayout {
             bookingForm.refreshTotal();
         });
 
-        VBox bookingCard = new VBox(12, bookingLabel, bookingForm.getGrid());
+        bookingCard = new VBox(12, bookingLabel, bookingForm.getGrid());
         bookingCard.getStyleClass().add("card");
         bookingCard.setPadding(new Insets(14));
 
@@ -156,9 +178,16 @@ public class MainLayout {
             Train train = trainService.getTrainById(1);
             if (train != null) {
                 System.out.println("\n=== CONCURRENCY DEMO ===");
-                MultiBookRunner.run(bookingService, train, 5, 3, train.getPricePerSeat());
-                refreshAll(); // Refresh UI after demo
-                Snackbar.show("Concurrency demo completed. Check console output.");
+                // The runner waits for its booker threads, so it must not run on the FX thread
+                bookingPipeline.run(() -> MultiBookRunner.run(bookingService, train, 5, 3, train.getPricePerSeat()))
+                        .whenComplete((done, error) -> Platform.runLater(() -> {
+                            showPending();
+                            refreshHistory(); // Train rows follow the seat-change feed
+                            Snackbar.show(error == null
+                                    ? "Concurrency demo completed. Check console output."
+                                    : "Concurrency demo failed: " + failureMessage(error));
+                        }));
+                showPending();
             }
         });
         
@@ -205,37 +234,50 @@ public class MainLayout {
                 return; // User cancelled
             }
 
-            try {
-                int newId = passengerIdSeq.getAndIncrement();
-                Passenger p = new Passenger(newId, name, 0.0);
-                passengerService.addPassenger(p);
-
-                // JDBC demonstration - insert passenger to database
-                DatabaseHandler.insertPassenger(p.getPassengerId(), p.getName());
-
-                Ticket t = bookingService.bookTicket(p, selectedTrain, seats, unit);
-
-                Snackbar.show("Booked " + seats + " seat(s) on " + selectedTrain.getTrainName());
-
-                refreshAll();
-
-                // Persist to files
-                FileHandler.savePassengers(passengerService.getAllPassengers(), "output/passengers.txt");
-                FileHandler.saveTickets(bookingService.getBookingHistory(), "output/tickets.txt");
+            int newId = passengerIdSeq.getAndIncrement();
+            Passenger p = new Passenger(newId, name, 0.0);
+            passengerService.addPassenger(p);
+            String filter = passengerFilter();
+            if (p.getName().regionMatches(true, 0, filter, 0, filter.length())) {
+                passengerList.add(p);
+            }
 
-                bookingForm.clear();
+            // Locks, ID reservations and persistence run on a booking thread; the form stays usable meanwhile
+            bookingPipeline.submit(() -> {
+                // JDBC demonstration - queued and written to the database in the background
+                DatabaseHandler.enqueuePassenger(p.getPassengerId(), p.getName());
+                return bookingService.bookTicket(p, selectedTrain, seats, unit);
+            }).whenComplete((ticket, error) -> Platform.runLater(() -> {
+                showPending();
+                if (error != null) {
+                    Snackbar.show(failureMessage(error));
+                    return;
+                }
+                refreshHistory();
+                bookingForm.clearIfUnchanged(name, seats);
 
                 // Recompute total for current selection after clear
                 Train reselected = trainList.getView().getSelectionModel().getSelectedItem();
                 double price = (reselected == null) ? 0.0 : reselected.getPricePerSeat();
                 bookingForm.setUnitPrice(price);
                 bookingForm.refreshTotal();
-            } catch (Exception ex) {
-                Snackbar.show(ex.getMessage());
-            }
+
+                Snackbar.show("Booked " + seats + " seat(s) on " + selectedTrain.getTrainName());
+            }));
+            showPending();
         });
     }
 
+    // The form shows "Booking..." while anything runs on the pipeline, the demo included
+    private void showPending() {
+        bookingForm.setPending(bookingPipeline.getPending() > 0);
+    }
+
+    private static String failureMessage(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause.getMessage();
+    }
+
     // Confirmation dialog showing unit price, seats, and total in INR
     private boolean confirmBooking(String trainName, double unitPrice, int seats, double total) {
         String message = "Train: " + trainName
@@ -251,16 +293,73 @@ public class MainLayout {
         return alert.showAndWait().filter(btn -> btn == ButtonType.OK).isPresent();
     }
 
-    private void refreshAll() {
-        trainList.setItems(trainService.getAllTrains());
-        passengerList.setItems(passengerService.getAllPassengers());
-        refreshHistory();
+    /**
+     * Enables or disables everything that books seats (the form and the demos).
+     */
+    public void setBookingEnabled(boolean enabled) {
+        bookingCard.setDisable(!enabled);
+        menuBar.setDisable(!enabled);
     }
 
+    /**
+     * Shows a lasting warning in the app bar, e.g. when booking runs in a degraded mode.
+     */
+    public void showNotice(String text) {
+        notice.setText(text);
+        notice.setVisible(true);
+    }
+
+    // Seat counts change on booking and demo threads; changes arriving while the FX thread is busy are merged per train
+    private void subscribeToSeatChanges() {
+        trainService.getSeatChanges().subscribeConflated(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription = s;
+                s.request(1);
+            }
+
+            @Override
+            public void onNext(SeatChange change) {
+                Platform.runLater(() -> {
+                    trainList.refreshRows();
+                    subscription.request(1);
+                });
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                System.err.println("[UI] Seat change feed failed: " + error.getMessage());
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+    }
+
+    private String passengerFilter() {
+        return passengerSearch.getText().trim();
+    }
+
+    // Passengers only change when one is added, so the list is rebuilt only when the search changes
+    private void showPassengers() {
+        String prefix = passengerFilter();
+        passengerList.setItems(prefix.isEmpty()
+                ? passengerService.getAllPassengers()
+                : passengerService.findByNamePrefix(prefix, PASSENGER_SEARCH_LIMIT));
+    }
+
+    // Only tickets booked since the last call are added
     private void refreshHistory() {
-        historyArea.clear();
-        for (Ticket t : bookingService.getBookingHistory()) {
-            historyArea.appendText(t.toString() + "\n");
-        }
+        historyView.showNewTickets();
+    }
+
+    /**
+     * Shows the history from its newest page again, e.g. after older tickets were restored into it.
+     */
+    public void reloadHistory() {
+        historyView.setHistory(bookingService.getBookingHistory());
     }
 }
@@ -0,0 +1,56 @@
+package models;
+
+import java.util.Arrays;
+
+/**
+ * Exact free-seat counts for every journey on a multi-leg train: for each range of legs
+ * [fromLeg, toLeg], how many seats are free on every leg in it. A seat counts toward each
+ * journey inside a run of consecutive legs on which it is free, so changing one seat
+ * updates O(legs^2) counters and "seats free for this journey" is a single array read.
+ *
+ * Not thread-safe: the owning {@link Train} serializes access. Not serialized either;
+ * the train rebuilds it from its seat maps.
+ */
+class JourneyInventory {
+
+    private final int legs;
+    // free[from][to - from]
+    private final int[][] free;
+
+    JourneyInventory(int legs, int freeSeats) {
+        this.legs = legs;
+        this.free = new int[legs][];
+        for (int from = 0; from < legs; from++) {
+            free[from] = new int[legs - from];
+            Arrays.fill(free[from], freeSeats);
+        }
+    }
+
+    /**
+     * Seats free on every leg in [fromLeg, toLeg] (inclusive).
+     */
+    int free(int fromLeg, int toLeg) {
+        return free[fromLeg][toLeg - fromLeg];
+    }
+
+    /**
+     * Adds {@code delta} to every journey a seat with these free legs could be sold for.
+     * Call with -1 and the seat's free legs before a change, then +1 with those after it.
+     */
+    void add(boolean[] freeLegs, int delta) {
+        int leg = 0;
+        while (leg < legs) {
+            if (!freeLegs[leg]) {
+                leg++;
+                continue;
+            }
+            int runEnd = leg;
+            while (runEnd + 1 < legs && freeLegs[runEnd + 1]) runEnd++;
+            for (int from = leg; from <= runEnd; from++) {
+                int[] row = free[from];
+                for (int to = from; to <= runEnd; to++) row[to - from] += delta;
+            }
+            leg = runEnd + 1;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package models;
+
+import java.io.Serializable;
+
+/**
+ * Free-seat counts for each leg of a journey (leg i runs from station i to i+1),
+ * kept in a segment tree with lazy range updates so that both
+ * "minimum free seats over legs [from, to]" and "book/release seats on
+ * legs [from, to]" run in O(log legs).
+ *
+ * Not thread-safe: the owning {@link Train} serializes access.
+ */
+public class LegInventory implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int legs;
+    private final int[] min;
+    private final int[] lazy;
+
+    public LegInventory(int legs, int seatsPerLeg) {
+        this.legs = legs;
+        this.min = new int[4 * legs];
+        this.lazy = new int[4 * legs];
+        build(1, 0, legs - 1, seatsPerLeg);
+    }
+
+    public int getLegs() { return legs; }
+
+    /**
+     * Fewest free seats on any leg in [fromLeg, toLeg] (inclusive).
+     */
+    public int min(int fromLeg, int toLeg) {
+        return query(1, 0, legs - 1, fromLeg, toLeg);
+    }
+
+    /**
+     * Fewest free seats on any leg of the journey.
+     */
+    public int minAll() {
+        return min[1];
+    }
+
+    /**
+     * Adds {@code delta} free seats to every leg in [fromLeg, toLeg] (negative to book).
+     */
+    public void add(int fromLeg, int toLeg, int delta) {
+        if (delta != 0) update(1, 0, legs - 1, fromLeg, toLeg, delta);
+    }
+
+    private void build(int node, int lo, int hi, int value) {
+        min[node] = value;
+        if (lo == hi) return;
+        int mid = (lo + hi) >>> 1;
+        build(2 * node, lo, mid, value);
+        build(2 * node + 1, mid + 1, hi, value);
+    }
+
+    private int query(int node, int lo, int hi, int from, int to) {
+        if (to < lo || hi < from) return Integer.MAX_VALUE;
+        if (from <= lo && hi <= to) return min[node];
+        push(node);
+        int mid = (lo + hi) >>> 1;
+        return Math.min(query(2 * node, lo, mid, from, to),
+                query(2 * node + 1, mid + 1, hi, from, to));
+    }
+
+    private void update(int node, int lo, int hi, int from, int to, int delta) {
+        if (to < lo || hi < from) return;
+        if (from <= lo && hi <= to) {
+            min[node] += delta;
+            lazy[node] += delta;
+            return;
+        }
+        push(node);
+        int mid = (lo + hi) >>> 1;
+        update(2 * node, lo, mid, from, to, delta);
+        update(2 * node + 1, mid + 1, hi, from, to, delta);
+        min[node] = Math.min(min[2 * node], min[2 * node + 1]);
+    }
+
+    // Hands a pending range update down to both children
+    private void push(int node) {
+        int pending = lazy[node];
+        if (pending == 0) return;
+        for (int child = 2 * node; child <= 2 * node + 1; child++) {
+            min[child] += pending;
+            lazy[child] += pending;
+        }
+        lazy[node] = 0;
+    }
+}
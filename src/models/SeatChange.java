@@ -0,0 +1,33 @@
+package models;
+
+/**
+ * A change to a train's available seats: how many seats were taken (negative delta) or
+ * freed (positive), and how many were left right after.
+ */
+public class SeatChange {
+    private final int trainId;
+    private final int delta;
+    private final int remaining;
+
+    public SeatChange(int trainId, int delta, int remaining) {
+        this.trainId = trainId;
+        this.delta = delta;
+        this.remaining = remaining;
+    }
+
+    public int getTrainId() { return trainId; }
+    public int getDelta() { return delta; }
+    public int getRemaining() { return remaining; }
+
+    /**
+     * This change followed by {@code later} on the same train, as one change.
+     */
+    public SeatChange merge(SeatChange later) {
+        return new SeatChange(trainId, delta + later.delta, later.remaining);
+    }
+
+    @Override
+    public String toString() {
+        return "SeatChange[train=" + trainId + ", delta=" + delta + ", remaining=" + remaining + "]";
+    }
+}
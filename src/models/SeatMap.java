@@ -0,0 +1,230 @@
+package models;
+
+import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Seat-level inventory for one train, packed as a bitmap of 64-bit words.
+ * A set bit means the seat is free; bits past the capacity are always clear.
+ * Seat numbers are 1-based, bit indexes 0-based.
+ *
+ * Lock-free: every word is updated with its own compare-and-set, so bookings on one train
+ * only retry when they touch the same 64 seats at the same moment. The map does not gate
+ * how many seats may be taken; {@link Train}'s availability counter does that, and is
+ * always at most the number of free bits (decremented before bits are taken, incremented
+ * after they are freed).
+ */
+public class SeatMap implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // Contiguous claims that lose a race fall back to scattered seats after this many tries
+    private static final int RUN_ATTEMPTS = 2;
+
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final int capacity;
+    private final long[] free;
+
+    public SeatMap(int capacity) {
+        this.capacity = Math.max(0, capacity);
+        this.free = new long[(this.capacity + 63) >>> 6];
+        for (int w = 0; w < free.length; w++) {
+            int bits = Math.min(64, this.capacity - (w << 6));
+            free[w] = bits == 64 ? -1L : (1L << bits) - 1;
+        }
+    }
+
+    public int getCapacity() { return capacity; }
+
+    /**
+     * Free seats, counted word by word; a snapshot while bookings are running.
+     */
+    public int getFreeCount() {
+        int count = 0;
+        for (int w = 0; w < free.length; w++) count += Long.bitCount(word(w));
+        return count;
+    }
+
+    public boolean isFree(int seatNumber) {
+        int bit = seatNumber - 1;
+        return bit >= 0 && bit < capacity && (word(bit >>> 6) & (1L << bit)) != 0;
+    }
+
+    /**
+     * Takes {@code count} seats, preferring one contiguous block so a group sits together.
+     * Falls back to the lowest free seats when no block is long enough.
+     *
+     * The caller must already have reserved {@code count} seats against the train's
+     * availability counter, so enough seats are free or being released; this keeps
+     * retrying until it has them.
+     */
+    int[] allocate(int count) {
+        if (count <= 0 || count > capacity) return null;
+        for (int attempt = 0; attempt < RUN_ATTEMPTS; attempt++) {
+            int start = findRun(this::word, free.length, count);
+            if (start < 0) break;
+            if (claimRun(start, count)) {
+                int[] seats = new int[count];
+                for (int i = 0; i < count; i++) seats[i] = start + i + 1;
+                return seats;
+            }
+        }
+        return claimLowest(count);
+    }
+
+    /**
+     * Marks specific seats as taken (used when restoring persisted bookings).
+     * Returns how many of them were actually free before the call.
+     */
+    public int occupy(int[] seatNumbers) {
+        int taken = 0;
+        for (int seat : seatNumbers) {
+            if (occupy(seat)) taken++;
+        }
+        return taken;
+    }
+
+    /**
+     * Marks one seat as taken. Returns whether it was free.
+     */
+    public boolean occupy(int seatNumber) {
+        int bit = seatNumber - 1;
+        if (bit < 0 || bit >= capacity) return false;
+        long mask = 1L << bit;
+        long before = (long) WORDS.getAndBitwiseAnd(free, bit >>> 6, ~mask);
+        return (before & mask) != 0;
+    }
+
+    /**
+     * Frees the given seats. Seats that are already free or out of range are ignored.
+     * Returns how many seats were actually released.
+     */
+    public int release(int[] seatNumbers) {
+        int released = 0;
+        for (int seat : seatNumbers) {
+            if (release(seat)) released++;
+        }
+        return released;
+    }
+
+    /**
+     * Frees one seat. Returns whether it was taken.
+     */
+    public boolean release(int seatNumber) {
+        int bit = seatNumber - 1;
+        if (bit < 0 || bit >= capacity) return false;
+        long mask = 1L << bit;
+        long before = (long) WORDS.getAndBitwiseOr(free, bit >>> 6, mask);
+        return (before & mask) == 0;
+    }
+
+    int wordCount() {
+        return free.length;
+    }
+
+    // Free seats 64 at a time, for callers that combine several maps word by word
+    long word(int w) {
+        return (long) WORDS.getAcquire(free, w);
+    }
+
+    // Claims bits [start, start + count) word by word; undoes the words already claimed if one has a taken seat
+    private boolean claimRun(int start, int count) {
+        int end = start + count; // exclusive bit index
+        for (int w = start >>> 6; (w << 6) < end; w++) {
+            long mask = rangeMask(w, start, end);
+            while (true) {
+                long x = word(w);
+                if ((x & mask) != mask) {
+                    for (int u = start >>> 6; u < w; u++) {
+                        WORDS.getAndBitwiseOr(free, u, rangeMask(u, start, end));
+                    }
+                    return false;
+                }
+                if (WORDS.compareAndSet(free, w, x, x & ~mask)) break;
+            }
+        }
+        return true;
+    }
+
+    // Bits of word w that fall in [start, end)
+    private static long rangeMask(int w, int start, int end) {
+        int lo = Math.max(start, w << 6) - (w << 6);
+        int hi = Math.min(end, (w + 1) << 6) - (w << 6); // exclusive, 1..64
+        long upTo = hi == 64 ? -1L : (1L << hi) - 1;
+        return upTo & (-1L << lo);
+    }
+
+    // Takes free seats lowest first, whole words at a time, passing over the map until it has enough
+    private int[] claimLowest(int count) {
+        int[] seats = new int[count];
+        int n = 0;
+        while (true) {
+            for (int w = 0; w < free.length && n < count; w++) {
+                long x = word(w);
+                while (x != 0) {
+                    long take = 0;
+                    long rest = x;
+                    for (int i = n; i < count && rest != 0; i++) {
+                        long low = rest & -rest;
+                        take |= low;
+                        rest &= rest - 1;
+                    }
+                    if (WORDS.compareAndSet(free, w, x, x & ~take)) {
+                        while (take != 0) {
+                            seats[n++] = (w << 6) + Long.numberOfTrailingZeros(take) + 1;
+                            take &= take - 1;
+                        }
+                        break;
+                    }
+                    x = word(w);
+                }
+            }
+            if (n == count) {
+                Arrays.sort(seats);
+                return seats;
+            }
+            Thread.onSpinWait(); // the reserved seats are still held by a booking that is about to give them back
+        }
+    }
+
+    /**
+     * Finds the first run of {@code n} set bits in the first {@code length} words, scanning a
+     * word at a time (each word is read once, so the words may be live).
+     * A run may span word boundaries; within a word, candidate starts are found by
+     * repeatedly AND-ing the word with shifted copies of itself (log2(n) steps).
+     * Returns the 0-based index of the first bit of the run, or -1.
+     */
+    static int findRun(IntToLongFunction words, int length, int n) {
+        int carry = 0; // free bits at the top of the previous words, adjoining this word
+        for (int w = 0; w < length; w++) {
+            long x = words.applyAsLong(w);
+            if (x == -1L) {
+                carry += 64;
+                if (carry >= n) return ((w + 1) << 6) - carry;
+                continue;
+            }
+            int low = Long.numberOfTrailingZeros(~x);
+            if (carry + low >= n) return (w << 6) - carry;
+            if (n <= 64) {
+                long starts = runStarts(x, n);
+                if (starts != 0) return (w << 6) + Long.numberOfTrailingZeros(starts);
+            }
+            carry = Long.numberOfLeadingZeros(~x);
+        }
+        return -1;
+    }
+
+    // Bit i of the result is set iff bits i .. i+n-1 of x are all set
+    private static long runStarts(long x, int n) {
+        int k = 1;
+        while (k < n && x != 0) {
+            int shift = Math.min(k, n - k);
+            x &= x >>> shift;
+            k += shift;
+        }
+        return x;
+    }
+}
@@ -9,12 +9,33 @@ public class Ticket implements Serializable {
     private Passenger passenger;
     private Train train;
     private int numberOfSeats;
+    private int[] seatNumbers;
+    private int originIndex;
+    private int destinationIndex;
 
     public Ticket(int ticketId, Passenger passenger, Train train, int numberOfSeats) {
+        this(ticketId, passenger, train, numberOfSeats, new int[0]);
+    }
+
+    /**
+     * Ticket with the specific (1-based) seats assigned by the train's seat map.
+     */
+    public Ticket(int ticketId, Passenger passenger, Train train, int numberOfSeats, int[] seatNumbers) {
+        this(ticketId, passenger, train, numberOfSeats, seatNumbers, 0, train.getStations().size() - 1);
+    }
+
+    /**
+     * Ticket for part of the route, between two station indexes of the train.
+     */
+    public Ticket(int ticketId, Passenger passenger, Train train, int numberOfSeats, int[] seatNumbers,
+                  int originIndex, int destinationIndex) {
         this.ticketId = ticketId;
         this.passenger = passenger;
         this.train = train;
         this.numberOfSeats = numberOfSeats;
+        this.seatNumbers = seatNumbers.clone();
+        this.originIndex = originIndex;
+        this.destinationIndex = destinationIndex;
     }
 
     public int getTicketId() { return ticketId; }
@@ -22,9 +43,49 @@ public class Ticket implements Serializable {
     public Train getTrain() { return train; }
     public int getNumberOfSeats() { return numberOfSeats; }
 
+    /**
+     * Assigned seat numbers; empty for tickets created before seat maps existed.
+     */
+    public int[] getSeatNumbers() {
+        return seatNumbers == null ? new int[0] : seatNumbers.clone();
+    }
+
+    // Tickets serialized before journeys existed have 0/0 and cover the full route
+    public int getOriginIndex() {
+        return destinationIndex > originIndex ? originIndex : 0;
+    }
+
+    public int getDestinationIndex() {
+        return destinationIndex > originIndex ? destinationIndex : train.getStations().size() - 1;
+    }
+
+    public String getOrigin() { return train.getStations().get(getOriginIndex()); }
+
+    public String getDestination() { return train.getStations().get(getDestinationIndex()); }
+
+    /**
+     * Compact seat list, e.g. "12-15, 20".
+     */
+    public String describeSeats() {
+        int[] seats = getSeatNumbers();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < seats.length; i++) {
+            int j = i;
+            while (j + 1 < seats.length && seats[j + 1] == seats[j] + 1) j++;
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(seats[i]);
+            if (j > i) sb.append('-').append(seats[j]);
+            i = j;
+        }
+        return sb.toString();
+    }
+
     @Override
     public String toString() {
+        String seats = getSeatNumbers().length == 0 ? "" : ": " + describeSeats();
+        boolean partial = getOriginIndex() > 0 || getDestinationIndex() < train.getStations().size() - 1;
+        String journey = partial ? " " + getOrigin() + " -> " + getDestination() : "";
         return "Ticket[" + ticketId + "] " + passenger.getName() 
-                + " on " + train.getTrainName() + " (" + numberOfSeats + " seats)";
+                + " on " + train.getTrainName() + journey + " (" + numberOfSeats + " seats" + seats + ")";
     }
 }
@@ -1,17 +1,63 @@
 package models;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Domain model for a Train.
  * Holds identity, naming, seating capacity, live availability, and price per seat.
+ * Availability is a lock-free counter that gates the seat-level {@link SeatMap}:
+ * a seat is only taken from the map after the counter has been decremented, and the map
+ * itself is updated with per-word compare-and-set, so booking a train never takes a lock.
+ *
+ * A train with intermediate stations sells seats per journey leg instead: each leg
+ * has its own seat map, per-leg free counts live in a {@link LegInventory}, exact counts
+ * per journey in a {@link JourneyInventory}, and {@link #getAvailableSeats()} reports the
+ * seats free on every leg of the route. Multi-leg bookings are serialized per train on
+ * the leg inventory.
  */
 public class Train implements Serializable {
+    // Pinned to the value computed for the original class so existing tickets.ser files still load
+    private static final long serialVersionUID = 3023750605531217590L;
+
+    // Upper bound (in spin iterations) for the randomized backoff after a failed CAS
+    private static final int MAX_BACKOFF_SPINS = 1 << 10;
+
+    private static final String[] DEFAULT_STATIONS = {"Origin", "Destination"};
+
+    private static final VarHandle AVAILABLE;
+    static {
+        try {
+            AVAILABLE = MethodHandles.lookup().findVarHandle(Train.class, "availableSeats", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private int trainId;
     private String trainName;
     private int totalSeats;
-    private int availableSeats;
+    private volatile int availableSeats;
     private double pricePerSeat;
+    private volatile boolean contentionBackoff;
+    private transient LongAdder casRetries = new LongAdder();
+    private transient volatile AvailabilityListener availabilityListener;
+    private SeatMap seatMap;
+
+    // Station names in running order; leg inventory only exists with intermediate stops
+    private String[] stations;
+    private SeatMap[] legSeats;
+    private LegInventory legInventory;
+    // Rebuilt from legSeats after deserialization; all guarded by legInventory
+    private transient JourneyInventory journeys;
+    private transient boolean[] freeBefore;
+    private transient boolean[] freeAfter;
 
     /**
      * Legacy constructor that keeps existing call sites working.
@@ -25,11 +71,32 @@ public class Train implements Serializable {
      * Primary constructor that also sets the price per seat.
      */
     public Train(int trainId, String trainName, int totalSeats, double pricePerSeat) {
+        this(trainId, trainName, totalSeats, pricePerSeat, null);
+    }
+
+    /**
+     * Constructor for a train that calls at the given stations, in running order.
+     * With more than two stations, seats can be sold for individual legs.
+     */
+    public Train(int trainId, String trainName, int totalSeats, double pricePerSeat, List<String> stations) {
         this.trainId = trainId;
         this.trainName = trainName;
         this.totalSeats = totalSeats;
         this.availableSeats = totalSeats;
         this.pricePerSeat = pricePerSeat;
+        this.stations = stations == null || stations.size() < 2
+                ? DEFAULT_STATIONS.clone() : stations.toArray(new String[0]);
+        if (this.stations.length > 2) {
+            int legs = this.stations.length - 1;
+            this.legSeats = new SeatMap[legs];
+            for (int i = 0; i < legs; i++) legSeats[i] = new SeatMap(totalSeats);
+            this.legInventory = new LegInventory(legs, totalSeats);
+            this.journeys = new JourneyInventory(legs, totalSeats);
+            this.freeBefore = new boolean[legs];
+            this.freeAfter = new boolean[legs];
+        } else {
+            this.seatMap = new SeatMap(totalSeats);
+        }
     }
 
     public int getTrainId() { return trainId; }
@@ -40,30 +107,339 @@ public class Train implements Serializable {
 
     public int getAvailableSeats() { return availableSeats; }
 
+    public List<String> getStations() { return List.of(stations); }
+
+    /**
+     * Index of a station by name (case-insensitive), or -1 if the train does not call there.
+     */
+    public int stationIndex(String stationName) {
+        for (int i = 0; i < stations.length; i++) {
+            if (stations[i].equalsIgnoreCase(stationName)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Seats that could be booked between two stations (by index): seats free on every leg
+     * in between. Exact, and O(1): read from the journey inventory.
+     */
+    public int getAvailableSeats(int origin, int destination) {
+        checkJourney(origin, destination);
+        if (legInventory == null) return availableSeats;
+        synchronized (legInventory) {
+            return journeys.free(origin, destination - 1);
+        }
+    }
+
+    /**
+     * Fewest free seats on any single leg between two stations (by index), in O(log legs).
+     * At least {@link #getAvailableSeats(int, int)}: a seat free on one leg may be taken on
+     * the next, so a larger value means the free seats do not line up across the journey.
+     */
+    public int getFewestFreeOnLegs(int origin, int destination) {
+        checkJourney(origin, destination);
+        if (legInventory == null) return availableSeats;
+        synchronized (legInventory) {
+            return legInventory.min(origin, destination - 1);
+        }
+    }
+
     /**
      * Price used to compute booking charges.
      */
     public double getPricePerSeat() { return pricePerSeat; }
 
+    /**
+     * When enabled, a thread that loses a CAS race waits a randomized, growing
+     * number of spins before retrying. Useful for trains hit by large bursts.
+     */
+    public boolean isContentionBackoff() { return contentionBackoff; }
+
+    public void setContentionBackoff(boolean contentionBackoff) {
+        this.contentionBackoff = contentionBackoff;
+    }
+
+    /**
+     * Receives every change to the available seat count: the change and the count right after it.
+     */
+    public interface AvailabilityListener {
+        void availabilityChanged(Train train, int delta, int remaining);
+    }
+
+    /**
+     * Registers a callback run after every change to the available seat count, on the
+     * thread that made it (sometimes while holding this train's leg lock), so it must be
+     * quick and must not book or release seats itself.
+     */
+    public synchronized void addAvailabilityListener(AvailabilityListener listener) {
+        AvailabilityListener current = availabilityListener;
+        availabilityListener = current == null ? listener : (train, delta, remaining) -> {
+            current.availabilityChanged(train, delta, remaining);
+            listener.availabilityChanged(train, delta, remaining);
+        };
+    }
+
+    private void availabilityChanged(int delta, int remaining) {
+        AvailabilityListener listener = availabilityListener;
+        if (listener != null) listener.availabilityChanged(this, delta, remaining);
+    }
+
+    /**
+     * Number of times a seat update lost a CAS race and had to retry.
+     */
+    public long getCasRetries() { return casRetries.sum(); }
+
+    /**
+     * Whether a specific (1-based) seat is currently free.
+     */
+    public boolean isSeatFree(int seatNumber) {
+        if (legInventory == null) return seatMap.isFree(seatNumber);
+        synchronized (legInventory) {
+            return isFreeOnAllLegs(seatNumber);
+        }
+    }
+
     /**
      * Attempts to reserve seats atomically.
      * Returns true if reservation succeeds, false if insufficient seats.
      */
-    public synchronized boolean bookSeats(int numSeats) {
-        if (numSeats <= 0) return false;
-        if (numSeats <= availableSeats) {
-            availableSeats -= numSeats;
-            return true;
+    public boolean bookSeats(int numSeats) {
+        return reserveSeats(numSeats) != null;
+    }
+
+    /**
+     * Reserves seats and assigns seat numbers, keeping the group together when a
+     * contiguous block is free. Returns the seat numbers, or null if insufficient seats.
+     */
+    public int[] reserveSeats(int numSeats) {
+        return reserveSeats(0, stations.length - 1, numSeats);
+    }
+
+    /**
+     * Reserves seats between two stations (by index). The same seats are held on
+     * every leg in between and stay free for the rest of the route.
+     * Returns the seat numbers, or null if insufficient seats.
+     *
+     * On a multi-leg train the journey inventory rejects a journey with too few seats free
+     * on all its legs in O(1) first. Otherwise the legs' free-seat words are ANDed as they
+     * are scanned and the scan stops at the first fit, so a train with free seats near the
+     * front is booked after a few words; nothing is copied.
+     */
+    public int[] reserveSeats(int origin, int destination, int numSeats) {
+        checkJourney(origin, destination);
+        if (legInventory == null) {
+            if (!takeCount(numSeats)) return null;
+            return seatMap.allocate(numSeats);
+        }
+        if (numSeats <= 0) return null;
+        synchronized (legInventory) {
+            int firstLeg = origin, lastLeg = destination - 1;
+            if (journeys.free(firstLeg, lastLeg) < numSeats) return null;
+            int[] seats = pickJourneySeats(firstLeg, lastLeg, numSeats);
+            if (seats == null) return null; // not reached while the journey counts are exact
+            occupyJourney(firstLeg, lastLeg, seats);
+            publishAvailability();
+            return seats;
+        }
+    }
+
+    // The first contiguous block free on every leg, otherwise the lowest such seats; caller holds legInventory
+    private int[] pickJourneySeats(int firstLeg, int lastLeg, int numSeats) {
+        int words = legSeats[0].wordCount();
+        int start = SeatMap.findRun(w -> journeyWord(firstLeg, lastLeg, w), words, numSeats);
+        int[] seats = new int[numSeats];
+        if (start >= 0) {
+            for (int i = 0; i < numSeats; i++) seats[i] = start + i + 1;
+            return seats;
+        }
+        int n = 0;
+        for (int w = 0; w < words && n < numSeats; w++) {
+            long x = journeyWord(firstLeg, lastLeg, w);
+            while (x != 0 && n < numSeats) {
+                seats[n++] = (w << 6) + Long.numberOfTrailingZeros(x) + 1;
+                x &= x - 1;
+            }
+        }
+        return n == numSeats ? seats : null;
+    }
+
+    // Seats of word w free on every leg in [firstLeg, lastLeg]
+    private long journeyWord(int firstLeg, int lastLeg, int w) {
+        long x = legSeats[firstLeg].word(w);
+        for (int leg = firstLeg + 1; leg <= lastLeg && x != 0; leg++) x &= legSeats[leg].word(w);
+        return x;
+    }
+
+    // Takes the seats on each leg and keeps the per-leg and per-journey counts; returns how many were free on every leg
+    private int occupyJourney(int firstLeg, int lastLeg, int[] seatNumbers) {
+        int taken = 0;
+        for (int seat : seatNumbers) {
+            freeLegs(seat, freeBefore);
+            boolean freeOnJourney = true;
+            for (int leg = firstLeg; leg <= lastLeg; leg++) {
+                if (legSeats[leg].occupy(seat)) legInventory.add(leg, leg, -1);
+                else freeOnJourney = false;
+            }
+            seatChanged(seat);
+            if (freeOnJourney) taken++;
+        }
+        return taken;
+    }
+
+    // Frees the seats on each leg and keeps the per-leg and per-journey counts
+    private void releaseJourney(int firstLeg, int lastLeg, int[] seatNumbers) {
+        for (int seat : seatNumbers) {
+            freeLegs(seat, freeBefore);
+            for (int leg = firstLeg; leg <= lastLeg; leg++) {
+                if (legSeats[leg].release(seat)) legInventory.add(leg, leg, 1);
+            }
+            seatChanged(seat);
+        }
+    }
+
+    // Moves the seat from the journeys it was free for (freeBefore) to those it is free for now
+    private void seatChanged(int seatNumber) {
+        freeLegs(seatNumber, freeAfter);
+        journeys.add(freeBefore, -1);
+        journeys.add(freeAfter, 1);
+    }
+
+    private void freeLegs(int seatNumber, boolean[] out) {
+        for (int leg = 0; leg < legSeats.length; leg++) out[leg] = legSeats[leg].isFree(seatNumber);
+    }
+
+    private boolean isFreeOnAllLegs(int seatNumber) {
+        for (SeatMap leg : legSeats) {
+            if (!leg.isFree(seatNumber)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Marks the seats of a persisted ticket as taken between two stations (by index),
+     * without choosing new ones. Used by recovery. Returns how many of the seats were
+     * still free on every leg; fewer than requested means another ticket already holds some.
+     */
+    public int restoreSeats(int origin, int destination, int[] seatNumbers) {
+        checkJourney(origin, destination);
+        if (legInventory == null) {
+            int taken = seatMap.occupy(seatNumbers);
+            int before = (int) AVAILABLE.getAndAdd(this, -taken);
+            if (taken > 0) availabilityChanged(-taken, before - taken);
+            return taken;
+        }
+        synchronized (legInventory) {
+            int taken = occupyJourney(origin, destination - 1, seatNumbers);
+            publishAvailability();
+            return taken;
         }
-        return false;
     }
 
     /**
-     * Releases seats back to availability and clamps to total capacity.
+     * Releases specific seats (e.g. from a cancelled ticket) back to availability.
      */
-    public synchronized void cancelSeats(int numSeats) {
-        availableSeats += numSeats;
-        if (availableSeats > totalSeats) availableSeats = totalSeats;
+    public void releaseSeats(int[] seatNumbers) {
+        releaseSeats(0, stations.length - 1, seatNumbers);
+    }
+
+    /**
+     * Releases specific seats held between two stations (by index).
+     */
+    public void releaseSeats(int origin, int destination, int[] seatNumbers) {
+        checkJourney(origin, destination);
+        if (legInventory == null) {
+            addCount(seatMap.release(seatNumbers));
+            return;
+        }
+        synchronized (legInventory) {
+            releaseJourney(origin, destination - 1, seatNumbers);
+            publishAvailability();
+        }
+    }
+
+    // End-to-end availability of a multi-leg train; caller holds the legInventory monitor
+    private void publishAvailability() {
+        int now = journeys.free(0, legSeats.length - 1);
+        int before = (int) AVAILABLE.getAndSet(this, now);
+        if (before != now) availabilityChanged(now - before, now);
+    }
+
+    private void checkJourney(int origin, int destination) {
+        if (origin < 0 || destination >= stations.length || origin >= destination) {
+            throw new IllegalArgumentException("Invalid journey " + origin + " -> " + destination
+                    + " on train " + trainId);
+        }
+    }
+
+    // Lock-free compare-and-set decrement of the availability counter
+    private boolean takeCount(int numSeats) {
+        if (numSeats <= 0) return false;
+        int backoff = 1;
+        while (true) {
+            int current = availableSeats;
+            if (numSeats > current) return false;
+            if (AVAILABLE.compareAndSet(this, current, current - numSeats)) {
+                availabilityChanged(-numSeats, current - numSeats);
+                return true;
+            }
+            backoff = onContention(backoff);
+        }
+    }
+
+    private void addCount(int numSeats) {
+        if (numSeats <= 0) return;
+        int backoff = 1;
+        while (true) {
+            int current = availableSeats;
+            int next = (int) Math.min((long) current + numSeats, totalSeats);
+            if (next == current) return;
+            if (AVAILABLE.compareAndSet(this, current, next)) {
+                availabilityChanged(next - current, next);
+                return;
+            }
+            backoff = onContention(backoff);
+        }
+    }
+
+    // Called after a lost CAS; returns the backoff bound for the next failure
+    private int onContention(int backoff) {
+        casRetries.increment();
+        if (!contentionBackoff) {
+            Thread.onSpinWait();
+            return backoff;
+        }
+        int spins = ThreadLocalRandom.current().nextInt(backoff) + 1;
+        for (int i = 0; i < spins; i++) {
+            Thread.onSpinWait();
+        }
+        if (backoff >= MAX_BACKOFF_SPINS) {
+            Thread.yield();
+            return backoff;
+        }
+        return backoff << 1;
+    }
+
+    // Trains serialized before seat maps existed come back without one; rebuild it
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        casRetries = new LongAdder();
+        if (stations == null) stations = DEFAULT_STATIONS.clone();
+        if (seatMap == null && legInventory == null) {
+            seatMap = new SeatMap(totalSeats);
+            int booked = totalSeats - availableSeats;
+            int[] taken = new int[Math.max(0, booked)];
+            for (int i = 0; i < taken.length; i++) taken[i] = i + 1;
+            seatMap.occupy(taken);
+        }
+        if (legInventory != null) {
+            journeys = new JourneyInventory(legSeats.length, 0);
+            freeBefore = new boolean[legSeats.length];
+            freeAfter = new boolean[legSeats.length];
+            for (int seat = 1; seat <= totalSeats; seat++) {
+                freeLegs(seat, freeAfter);
+                journeys.add(freeAfter, 1);
+            }
+        }
     }
 
     @Override
@@ -0,0 +1,115 @@
+package monitoring;
+
+import models.Train;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Entry point for runtime metrics. Services call the static record methods; the
+ * numbers are published as platform MXBeans under the {@code railway} domain so any
+ * local JMX client (jconsole, VisualVM, jcmd) can read them.
+ */
+public class BookingMetrics implements BookingMetricsMXBean {
+
+    private static final String DOMAIN = "railway";
+    private static final BookingMetrics INSTANCE = new BookingMetrics();
+
+    static {
+        register(INSTANCE, DOMAIN + ":type=Booking");
+    }
+
+    private final Map<Integer, TrainMetrics> trains = new ConcurrentHashMap<>();
+    private final Map<String, JdbcMetrics> jdbc = new ConcurrentHashMap<>();
+    private final LongAdder bookings = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder soldOutRejections = new LongAdder();
+    private final LongAdder lockWaitNanos = new LongAdder();
+    private final LongAdder unpersistedTickets = new LongAdder();
+    private final LatencyHistogram bookingLatency = new LatencyHistogram();
+    private final LatencyHistogram lockWait = new LatencyHistogram();
+
+    private BookingMetrics() {}
+
+    /**
+     * Metrics for a train, registering its MXBean the first time the train is seen.
+     */
+    public static TrainMetrics forTrain(Train train) {
+        TrainMetrics metrics = INSTANCE.trains.get(train.getTrainId());
+        if (metrics == null) {
+            metrics = INSTANCE.trains.computeIfAbsent(train.getTrainId(), id -> {
+                TrainMetrics created = new TrainMetrics(train);
+                register(created, DOMAIN + ":type=Train,id=" + id);
+                return created;
+            });
+        }
+        metrics.bind(train);
+        return metrics;
+    }
+
+    /**
+     * Metrics for one kind of JDBC call; callers should keep the returned instance.
+     */
+    public static JdbcMetrics forJdbc(String operation) {
+        return INSTANCE.jdbc.computeIfAbsent(operation, op -> {
+            JdbcMetrics created = new JdbcMetrics(op);
+            register(created, DOMAIN + ":type=Jdbc,operation=" + op);
+            return created;
+        });
+    }
+
+    public static void recordBooking(Train train, int seats, long nanos) {
+        forTrain(train).recordBooking(seats, nanos);
+        INSTANCE.bookings.increment();
+        INSTANCE.bookingLatency.record(nanos);
+    }
+
+    public static void recordRejection(Train train, boolean soldOut) {
+        forTrain(train).recordRejection(soldOut);
+        INSTANCE.rejections.increment();
+        if (soldOut) INSTANCE.soldOutRejections.increment();
+    }
+
+    public static void recordLockWait(Train train, long nanos) {
+        forTrain(train).recordLockWait(nanos);
+        INSTANCE.lockWaitNanos.add(nanos);
+        INSTANCE.lockWait.record(nanos);
+    }
+
+    /**
+     * Counts tickets that were sold but that the ticket sink failed to take.
+     */
+    public static void recordSinkFailure(int tickets) {
+        INSTANCE.unpersistedTickets.add(tickets);
+    }
+
+    private static void register(Object mbean, String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(name);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(mbean, objectName);
+            }
+        } catch (Exception e) {
+            System.err.println("[JMX] Could not register " + name + ": " + e.getMessage());
+        }
+    }
+
+    @Override public int getTrackedTrains() { return trains.size(); }
+    @Override public long getBookings() { return bookings.sum(); }
+    @Override public long getRejections() { return rejections.sum(); }
+    @Override public long getSoldOutRejections() { return soldOutRejections.sum(); }
+    @Override public long getUnpersistedTickets() { return unpersistedTickets.sum(); }
+
+    @Override public double getBookingLatencyP50Micros() { return bookingLatency.percentile(50) / 1e3; }
+    @Override public double getBookingLatencyP99Micros() { return bookingLatency.percentile(99) / 1e3; }
+    @Override public double getBookingLatencyP999Micros() { return bookingLatency.percentile(99.9) / 1e3; }
+    @Override public double getBookingLatencyMaxMicros() { return bookingLatency.getMax() / 1e3; }
+
+    @Override public double getLockWaitTotalMillis() { return lockWaitNanos.sum() / 1e6; }
+    @Override public double getLockWaitP99Micros() { return lockWait.percentile(99) / 1e3; }
+}
@@ -0,0 +1,21 @@
+package monitoring;
+
+/**
+ * Service-wide booking totals, registered as {@code railway:type=Booking}.
+ * Per-train figures are on the {@code railway:type=Train} beans.
+ */
+public interface BookingMetricsMXBean {
+    int getTrackedTrains();
+    long getBookings();
+    long getRejections();
+    long getSoldOutRejections();
+    long getUnpersistedTickets();
+
+    double getBookingLatencyP50Micros();
+    double getBookingLatencyP99Micros();
+    double getBookingLatencyP999Micros();
+    double getBookingLatencyMaxMicros();
+
+    double getLockWaitTotalMillis();
+    double getLockWaitP99Micros();
+}
@@ -0,0 +1,158 @@
+package monitoring;
+
+import javax.management.ObjectName;
+import java.lang.management.LockInfo;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MonitorInfo;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background thread that polls {@link ThreadMXBean#findDeadlockedThreads()} and, when a
+ * cycle is found, logs which trains and passengers each thread holds and waits for and
+ * how long it has been waiting. With recovery enabled it interrupts one victim blocked
+ * on a {@link TrackedLock}, which makes that booking fail and releases its locks so
+ * the rest of the system carries on without a restart.
+ */
+public class DeadlockWatchdog implements DeadlockWatchdogMXBean {
+
+    private final long intervalMillis;
+    private final boolean recover;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private final AtomicLong deadlocksDetected = new AtomicLong();
+    private final AtomicLong victimsInterrupted = new AtomicLong();
+    private volatile String lastReport = "";
+    private long[] lastCycle = new long[0];
+    private ScheduledExecutorService scheduler;
+
+    public DeadlockWatchdog(long intervalMillis, boolean recover) {
+        this.intervalMillis = intervalMillis;
+        this.recover = recover;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Deadlock-Watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::poll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        try {
+            ObjectName name = new ObjectName("railway:type=Watchdog");
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            }
+        } catch (Exception e) {
+            System.err.println("[Watchdog] Could not register MBean: " + e.getMessage());
+        }
+        System.out.println("[Watchdog] Polling for deadlocks every " + intervalMillis + " ms (recovery "
+                + (recover ? "on" : "off") + ")");
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void poll() {
+        try {
+            checkNow();
+        } catch (RuntimeException e) {
+            System.err.println("[Watchdog] Check failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs one detection pass. Returns the report for a newly found deadlock, or null.
+     */
+    public synchronized String checkNow() {
+        long[] ids = threads.findDeadlockedThreads();
+        if (ids == null) {
+            lastCycle = new long[0];
+            return null;
+        }
+        Arrays.sort(ids);
+        if (Arrays.equals(ids, lastCycle)) return null; // already reported, victim still unwinding
+        lastCycle = ids;
+        deadlocksDetected.incrementAndGet();
+
+        Map<Long, Thread> live = new HashMap<>();
+        for (Thread t : Thread.getAllStackTraces().keySet()) live.put(t.threadId(), t);
+
+        // Map threads to the tracked locks they hold and wait on
+        Map<Thread, List<TrackedLock>> holding = new HashMap<>();
+        Map<Thread, TrackedLock> waitingOn = new HashMap<>();
+        for (TrackedLock lock : TrackedLock.all()) {
+            Thread owner = lock.getOwnerThread();
+            if (owner != null) holding.computeIfAbsent(owner, k -> new ArrayList<>()).add(lock);
+            for (Thread waiter : lock.getWaitingThreads()) waitingOn.put(waiter, lock);
+        }
+
+        StringBuilder report = new StringBuilder("Deadlock between " + ids.length + " threads:");
+        Thread victim = null;
+        long victimWait = Long.MAX_VALUE;
+        for (ThreadInfo info : threads.getThreadInfo(ids, true, true)) {
+            if (info == null) continue;
+            Thread thread = live.get(info.getThreadId());
+            TrackedLock wanted = thread == null ? null : waitingOn.get(thread);
+            long waitedNanos = wanted == null ? -1 : wanted.getWaitNanos(thread);
+
+            report.append("\n  '").append(info.getThreadName()).append("' waits");
+            if (waitedNanos >= 0) report.append(' ').append(waitedNanos / 1_000_000).append(" ms");
+            report.append(" for ").append(wanted != null ? wanted.getLabel() : describe(info.getLockInfo()))
+                    .append(" held by '").append(info.getLockOwnerName()).append("'; holds ")
+                    .append(describeHeld(info, thread == null ? null : holding.get(thread)));
+
+            // Interrupt whoever has waited least: it has the least work to lose
+            if (wanted != null && waitedNanos < victimWait) {
+                victim = thread;
+                victimWait = waitedNanos;
+            }
+        }
+
+        if (recover && victim != null) {
+            report.append("\n  Interrupting '").append(victim.getName()).append("' to break the cycle");
+            victim.interrupt();
+            victimsInterrupted.incrementAndGet();
+        } else if (recover) {
+            report.append("\n  No interruptible victim (all threads blocked on monitors)");
+        }
+
+        lastReport = report.toString();
+        System.out.println("[Watchdog] " + lastReport);
+        return lastReport;
+    }
+
+    private static String describeHeld(ThreadInfo info, List<TrackedLock> tracked) {
+        List<String> held = new ArrayList<>();
+        if (tracked != null) {
+            for (TrackedLock lock : tracked) held.add(lock.getLabel());
+        }
+        for (MonitorInfo monitor : info.getLockedMonitors()) held.add(describe(monitor));
+        return held.isEmpty() ? "nothing" : String.join(", ", held);
+    }
+
+    private static String describe(LockInfo lock) {
+        if (lock == null) return "unknown lock";
+        return lock.getClassName() + "@" + Integer.toHexString(lock.getIdentityHashCode());
+    }
+
+    @Override public long getIntervalMillis() { return intervalMillis; }
+    @Override public boolean isRecoveryEnabled() { return recover; }
+    @Override public long getDeadlocksDetected() { return deadlocksDetected.get(); }
+    @Override public long getVictimsInterrupted() { return victimsInterrupted.get(); }
+    @Override public String getLastReport() { return lastReport; }
+}
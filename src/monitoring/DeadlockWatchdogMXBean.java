@@ -0,0 +1,12 @@
+package monitoring;
+
+/**
+ * Deadlock watchdog status, registered as {@code railway:type=Watchdog}.
+ */
+public interface DeadlockWatchdogMXBean {
+    long getIntervalMillis();
+    boolean isRecoveryEnabled();
+    long getDeadlocksDetected();
+    long getVictimsInterrupted();
+    String getLastReport();
+}
@@ -0,0 +1,33 @@
+package monitoring;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call count, error count and duration histogram for one DatabaseHandler operation.
+ */
+public class JdbcMetrics implements JdbcMetricsMXBean {
+
+    private final String operation;
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram durations = new LatencyHistogram();
+
+    JdbcMetrics(String operation) {
+        this.operation = operation;
+    }
+
+    public void record(long nanos) {
+        durations.record(nanos);
+    }
+
+    public void recordError() {
+        errors.increment();
+    }
+
+    @Override public String getOperation() { return operation; }
+    @Override public long getCalls() { return durations.getCount(); }
+    @Override public long getErrors() { return errors.sum(); }
+    @Override public double getMeanMillis() { return durations.getMean() / 1e6; }
+    @Override public double getP50Millis() { return durations.percentile(50) / 1e6; }
+    @Override public double getP99Millis() { return durations.percentile(99) / 1e6; }
+    @Override public double getMaxMillis() { return durations.getMax() / 1e6; }
+}
@@ -0,0 +1,14 @@
+package monitoring;
+
+/**
+ * Timings for one kind of JDBC call, registered as {@code railway:type=Jdbc,operation=<name>}.
+ */
+public interface JdbcMetricsMXBean {
+    String getOperation();
+    long getCalls();
+    long getErrors();
+    double getMeanMillis();
+    double getP50Millis();
+    double getP99Millis();
+    double getMaxMillis();
+}
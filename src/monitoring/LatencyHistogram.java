@@ -0,0 +1,99 @@
+package monitoring;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram in the HDR style: small values are counted exactly, larger values
+ * fall into log-linear buckets (a fixed number per power of two), so relative error is
+ * bounded over the full long range with a fixed number of slots.
+ *
+ * Buckets are striped {@link LongAdder}s created on first use, so concurrent recorders
+ * do not contend on a shared counter and untouched buckets cost a single null slot.
+ */
+public class LatencyHistogram {
+
+    private final int subBucketBits;
+    private final int subBuckets;
+    private final int half;
+
+    private final AtomicReferenceArray<LongAdder> counts;
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * 128 sub-buckets per power of two: values within about 1.6%.
+     */
+    public LatencyHistogram() {
+        this(7);
+    }
+
+    /**
+     * @param subBucketBits log2 of the sub-buckets per power of two; relative error is
+     *                      about 2 / 2^subBucketBits (e.g. 4 bits: ~12%, 7 bits: ~1.6%)
+     */
+    public LatencyHistogram(int subBucketBits) {
+        this.subBucketBits = subBucketBits;
+        this.subBuckets = 1 << subBucketBits;
+        this.half = subBuckets >> 1;
+        this.counts = new AtomicReferenceArray<>((63 - subBucketBits) * half + subBuckets);
+    }
+
+    public void record(long value) {
+        if (value < 0) value = 0;
+        bucket(indexFor(value)).increment();
+        total.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long getCount() { return total.sum(); }
+
+    public long getMax() { return max.get(); }
+
+    public double getMean() {
+        long count = total.sum();
+        return count == 0 ? 0.0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * Value at the given percentile (0-100), reported as the upper edge of its bucket.
+     */
+    public long percentile(double percentile) {
+        long count = total.sum();
+        if (count == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            LongAdder bucket = counts.get(i);
+            if (bucket == null) continue;
+            seen += bucket.sum();
+            if (seen >= target) return Math.min(highestValueAt(i), max.get());
+        }
+        return max.get();
+    }
+
+    private LongAdder bucket(int index) {
+        LongAdder bucket = counts.get(index);
+        if (bucket == null) {
+            LongAdder created = new LongAdder();
+            bucket = counts.compareAndSet(index, null, created) ? created : counts.get(index);
+        }
+        return bucket;
+    }
+
+    int indexFor(long value) {
+        if (value < subBuckets) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (subBucketBits - 1);
+        return shift * half + (int) (value >>> shift);
+    }
+
+    long highestValueAt(int index) {
+        if (index < subBuckets) return index;
+        int shift = index / half - 1;
+        long sub = index - (long) shift * half;
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,88 @@
+package monitoring;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A ReentrantLock that knows which booking resource it guards (e.g. "Train 1 (Express A)")
+ * and when each blocked thread started waiting, so {@link DeadlockWatchdog} can describe
+ * a cycle in domain terms. Only contended acquisitions pay for the bookkeeping.
+ */
+public final class TrackedLock extends ReentrantLock {
+    private static final long serialVersionUID = 1L;
+
+    // Every live tracked lock; weak so locks of discarded services can be collected
+    private static final Map<TrackedLock, Boolean> REGISTRY = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final String label;
+    // Threads are not serializable; a deserialized lock starts with nobody waiting
+    private transient Map<Thread, Long> waitingSince = new ConcurrentHashMap<>();
+
+    public TrackedLock(String label) {
+        this.label = label;
+        REGISTRY.put(this, Boolean.TRUE);
+    }
+
+    public String getLabel() { return label; }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        if (tryLock()) return;
+        Thread current = Thread.currentThread();
+        waitingSince.put(current, System.nanoTime());
+        try {
+            super.lockInterruptibly();
+        } finally {
+            waitingSince.remove(current);
+        }
+    }
+
+    @Override
+    public void lock() {
+        if (tryLock()) return;
+        Thread current = Thread.currentThread();
+        waitingSince.put(current, System.nanoTime());
+        try {
+            super.lock();
+        } finally {
+            waitingSince.remove(current);
+        }
+    }
+
+    public Thread getOwnerThread() { return getOwner(); }
+
+    public Collection<Thread> getWaitingThreads() { return getQueuedThreads(); }
+
+    /**
+     * How long the thread has been blocked on this lock, or -1 if it is not waiting.
+     */
+    public long getWaitNanos(Thread thread) {
+        Long since = waitingSince.get(thread);
+        return since == null ? -1 : System.nanoTime() - since;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        waitingSince = new ConcurrentHashMap<>();
+        REGISTRY.put(this, Boolean.TRUE);
+    }
+
+    static List<TrackedLock> all() {
+        synchronized (REGISTRY) {
+            return new ArrayList<>(REGISTRY.keySet());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,72 @@
+package monitoring;
+
+import models.Train;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for one train. Recording only touches striped
+ * adders, so it adds no shared lock to the booking path.
+ */
+public class TrainMetrics implements TrainMetricsMXBean {
+
+    // Coarser than the service-wide histograms (~12%) to keep per-train memory small
+    private static final int PER_TRAIN_PRECISION_BITS = 4;
+
+    private volatile Train train;
+
+    private final LongAdder bookings = new LongAdder();
+    private final LongAdder seatsBooked = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder soldOutRejections = new LongAdder();
+    private final LongAdder lockWaitNanos = new LongAdder();
+    private final LatencyHistogram bookingLatency = new LatencyHistogram(PER_TRAIN_PRECISION_BITS);
+    private final LatencyHistogram lockWait = new LatencyHistogram(PER_TRAIN_PRECISION_BITS);
+
+    TrainMetrics(Train train) {
+        this.train = train;
+    }
+
+    // Several Train objects may share an ID (e.g. reloaded data); report the latest one
+    void bind(Train train) {
+        if (this.train != train) this.train = train;
+    }
+
+    void recordBooking(int seats, long nanos) {
+        bookings.increment();
+        seatsBooked.add(seats);
+        bookingLatency.record(nanos);
+    }
+
+    void recordRejection(boolean soldOut) {
+        rejections.increment();
+        if (soldOut) soldOutRejections.increment();
+    }
+
+    void recordLockWait(long nanos) {
+        lockWaitNanos.add(nanos);
+        lockWait.record(nanos);
+    }
+
+    @Override public int getTrainId() { return train.getTrainId(); }
+    @Override public String getTrainName() { return train.getTrainName(); }
+    @Override public int getTotalSeats() { return train.getTotalSeats(); }
+    @Override public int getAvailableSeats() { return train.getAvailableSeats(); }
+
+    @Override public long getBookings() { return bookings.sum(); }
+    @Override public long getSeatsBooked() { return seatsBooked.sum(); }
+    @Override public long getRejections() { return rejections.sum(); }
+    @Override public long getSoldOutRejections() { return soldOutRejections.sum(); }
+    @Override public long getCasRetries() { return train.getCasRetries(); }
+
+    @Override public double getBookingLatencyMeanMicros() { return bookingLatency.getMean() / 1e3; }
+    @Override public double getBookingLatencyP50Micros() { return bookingLatency.percentile(50) / 1e3; }
+    @Override public double getBookingLatencyP99Micros() { return bookingLatency.percentile(99) / 1e3; }
+    @Override public double getBookingLatencyP999Micros() { return bookingLatency.percentile(99.9) / 1e3; }
+    @Override public double getBookingLatencyMaxMicros() { return bookingLatency.getMax() / 1e3; }
+
+    @Override public long getLockAcquisitions() { return lockWait.getCount(); }
+    @Override public double getLockWaitTotalMillis() { return lockWaitNanos.sum() / 1e6; }
+    @Override public double getLockWaitP99Micros() { return lockWait.percentile(99) / 1e3; }
+    @Override public double getLockWaitMaxMicros() { return lockWait.getMax() / 1e3; }
+}
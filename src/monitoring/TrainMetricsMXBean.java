@@ -0,0 +1,29 @@
+package monitoring;
+
+/**
+ * Per-train booking metrics, registered as {@code railway:type=Train,id=<trainId>}.
+ * Latencies are in microseconds unless the name says otherwise.
+ */
+public interface TrainMetricsMXBean {
+    int getTrainId();
+    String getTrainName();
+    int getTotalSeats();
+    int getAvailableSeats();
+
+    long getBookings();
+    long getSeatsBooked();
+    long getRejections();
+    long getSoldOutRejections();
+    long getCasRetries();
+
+    double getBookingLatencyMeanMicros();
+    double getBookingLatencyP50Micros();
+    double getBookingLatencyP99Micros();
+    double getBookingLatencyP999Micros();
+    double getBookingLatencyMaxMicros();
+
+    long getLockAcquisitions();
+    double getLockWaitTotalMillis();
+    double getLockWaitP99Micros();
+    double getLockWaitMaxMicros();
+}
@@ -0,0 +1,369 @@
+package persistence;
+
+import models.Passenger;
+import models.Ticket;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of bookings, written through a FileChannel.
+ *
+ * Each record is framed as {@code [int length][int crc32][payload]}, so a record cut short
+ * by a crash is detected on read and everything after it is ignored. The journal is split
+ * into numbered segments ({@code bookings-<n>.journal}); {@link #rollover} seals the current
+ * segment so {@link JournalCompactor} can fold it into the text snapshot.
+ *
+ * Appends use group commit: concurrent callers queue their records, one of them writes
+ * everything queued with a single gathering write and fsync, and the rest wait for it.
+ * A call returns once its records are on disk, and throws if the write that carried them
+ * failed. A failed write is cut back off the segment (or the journal moves on to a new
+ * segment if that fails too), so later records never follow torn bytes.
+ */
+public class BookingJournal implements Closeable {
+
+    static final byte TICKET = 'T';
+    static final byte PASSENGER = 'P';
+
+    private static final String PREFIX = "bookings-";
+    private static final String SUFFIX = ".journal";
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+
+    private final Path dir;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushed = lock.newCondition();
+    private final Set<Integer> journaledPassengers = ConcurrentHashMap.newKeySet();
+
+    // Records queued for one group commit, and how that commit ended; guarded by lock
+    private static class Batch {
+        final List<ByteBuffer> records = new ArrayList<>();
+        boolean done;
+        IOException failure;
+    }
+
+    // Guarded by lock
+    private FileChannel channel;
+    private long generation;
+    private Batch pending = new Batch();
+    private boolean flushing;
+    private boolean closed;
+
+    private BookingJournal(Path dir, long generation) throws IOException {
+        this.dir = dir;
+        this.generation = generation;
+        this.channel = openSegment(generation);
+    }
+
+    /**
+     * Opens a fresh segment after any segments already in {@code dir}, and after every
+     * generation already folded, so a new segment is never mistaken for a folded one.
+     * Existing segments are left for the compactor.
+     */
+    public static BookingJournal open(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        List<Path> existing = segments(dir);
+        long last = existing.isEmpty() ? 0 : generationOf(existing.get(existing.size() - 1));
+        long next = Math.max(last, JournalCompactor.foldedGeneration(dir)) + 1;
+        return new BookingJournal(dir, next);
+    }
+
+    public Path getDirectory() { return dir; }
+
+    /**
+     * Journals the tickets, preceded by a passenger record the first time each passenger appears.
+     * A passenger only counts as journaled once the append succeeds; racing appends may both
+     * write the same passenger, which folding tolerates.
+     */
+    public void appendTickets(List<Ticket> tickets) throws IOException {
+        List<ByteBuffer> records = new ArrayList<>(tickets.size() * 2);
+        Set<Integer> introduced = new HashSet<>();
+        for (Ticket t : tickets) {
+            Passenger p = t.getPassenger();
+            if (!journaledPassengers.contains(p.getPassengerId()) && introduced.add(p.getPassengerId())) {
+                records.add(frame(encodePassenger(p)));
+            }
+            records.add(frame(encodeTicket(t)));
+        }
+        append(records);
+        journaledPassengers.addAll(introduced);
+    }
+
+    public void appendPassenger(Passenger passenger) throws IOException {
+        if (!journaledPassengers.contains(passenger.getPassengerId())) {
+            append(List.of(frame(encodePassenger(passenger))));
+            journaledPassengers.add(passenger.getPassengerId());
+        }
+    }
+
+    private void append(List<ByteBuffer> records) throws IOException {
+        if (records.isEmpty()) return;
+        lock.lock();
+        try {
+            if (closed) throw new IOException("Journal is closed");
+            Batch mine = pending;
+            mine.records.addAll(records);
+            while (!mine.done) {
+                if (flushing) {
+                    flushed.awaitUninterruptibly();
+                    continue;
+                }
+                // Become the leader: write out everything queued so far, including other threads' records
+                flushing = true;
+                Batch batch = pending;
+                pending = new Batch();
+                FileChannel target = channel;
+                long committedBytes = -1;
+                IOException failure = null;
+                lock.unlock();
+                try {
+                    committedBytes = target.size();
+                    writeFully(target, batch.records);
+                    target.force(false);
+                } catch (IOException e) {
+                    failure = e;
+                } finally {
+                    lock.lock();
+                    if (failure != null) discardFailedWrite(target, committedBytes, failure);
+                    flushing = false;
+                    batch.done = true;
+                    batch.failure = failure;
+                    flushed.signalAll();
+                }
+            }
+            if (mine.failure != null) {
+                throw new IOException("Journal write failed: " + mine.failure.getMessage(), mine.failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Cuts a failed batch off the segment; if that fails, later appends go to a new segment
+    private void discardFailedWrite(FileChannel target, long committedBytes, IOException failure) {
+        System.err.println("[Journal] Group commit failed: " + failure.getMessage());
+        if (committedBytes >= 0) {
+            try {
+                target.truncate(committedBytes);
+                target.force(false);
+                return;
+            } catch (IOException e) {
+                System.err.println("[Journal] Could not truncate " + PREFIX + generation + SUFFIX + ": " + e.getMessage());
+            }
+        }
+        try {
+            channel = openSegment(generation + 1);
+            generation++;
+            target.close();
+        } catch (IOException e) {
+            System.err.println("[Journal] Could not start a new segment: " + e.getMessage());
+        }
+    }
+
+    private static void writeFully(FileChannel target, List<ByteBuffer> batch) throws IOException {
+        ByteBuffer[] buffers = batch.toArray(new ByteBuffer[0]);
+        long remaining = 0;
+        for (ByteBuffer b : buffers) remaining += b.remaining();
+        while (remaining > 0) {
+            remaining -= target.write(buffers);
+        }
+    }
+
+    /**
+     * Starts a new segment and returns the sealed ones (every segment before it), oldest first.
+     */
+    public List<Path> rollover() throws IOException {
+        FileChannel old;
+        lock.lock();
+        try {
+            if (closed) throw new IOException("Journal is closed");
+            while (flushing) flushed.awaitUninterruptibly();
+            old = channel;
+            channel = openSegment(generation + 1);
+            generation++;
+        } finally {
+            lock.unlock();
+        }
+        old.close();
+        List<Path> sealed = new ArrayList<>();
+        for (Path p : segments(dir)) {
+            if (generationOf(p) < generation) sealed.add(p);
+        }
+        return sealed;
+    }
+
+    /**
+     * Size of the segment currently being written.
+     */
+    public long activeBytes() throws IOException {
+        lock.lock();
+        try {
+            return closed ? 0 : channel.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) return;
+            while (flushing) flushed.awaitUninterruptibly();
+            closed = true;
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private FileChannel openSegment(long gen) throws IOException {
+        return FileChannel.open(dir.resolve(PREFIX + gen + SUFFIX),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Journal segments in {@code dir}, oldest first.
+     */
+    public static List<Path> segments(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            return new ArrayList<>(files
+                    .filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted((a, b) -> Long.compare(generationOf(a), generationOf(b)))
+                    .toList());
+        }
+    }
+
+    static long generationOf(Path segment) {
+        String name = segment.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // ---- record encoding ----
+
+    private static ByteBuffer frame(ByteBuffer payload) {
+        payload.flip();
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        ByteBuffer framed = ByteBuffer.allocate(HEADER_BYTES + payload.remaining());
+        framed.putInt(payload.remaining()).putInt((int) crc.getValue()).put(payload);
+        return framed.flip();
+    }
+
+    private static ByteBuffer encodeTicket(Ticket t) {
+        int[] seats = t.getSeatNumbers();
+        ByteBuffer b = ByteBuffer.allocate(1 + 4 * 7 + 4 * seats.length);
+        b.put(TICKET)
+                .putInt(t.getTicketId())
+                .putInt(t.getPassenger().getPassengerId())
+                .putInt(t.getTrain().getTrainId())
+                .putInt(t.getNumberOfSeats())
+                .putInt(t.getOriginIndex())
+                .putInt(t.getDestinationIndex())
+                .putInt(seats.length);
+        for (int seat : seats) b.putInt(seat);
+        return b;
+    }
+
+    private static ByteBuffer encodePassenger(Passenger p) {
+        byte[] name = p.getName().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer b = ByteBuffer.allocate(1 + 4 + 8 + 4 + name.length);
+        b.put(PASSENGER).putInt(p.getPassengerId()).putDouble(p.getBalance()).putInt(name.length).put(name);
+        return b;
+    }
+
+    /**
+     * Receives decoded records from {@link #read}.
+     */
+    public interface Visitor {
+        void ticket(int ticketId, int passengerId, int trainId, int seats,
+                    int originIndex, int destinationIndex, int[] seatNumbers);
+
+        void passenger(int passengerId, String name, double balance);
+    }
+
+    /**
+     * Replays one segment in order. Reading stops at the first torn or corrupt record
+     * (a crash mid-write); the offset of that record is returned, or the file size
+     * if the whole segment was intact.
+     */
+    public static long read(Path segment, Visitor visitor) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(segment));
+        CRC32 crc = new CRC32();
+        while (data.remaining() >= HEADER_BYTES) {
+            int start = data.position();
+            int length = data.getInt();
+            int checksum = data.getInt();
+            if (length <= 0 || length > MAX_RECORD_BYTES || length > data.remaining()) {
+                return torn(segment, start);
+            }
+            ByteBuffer payload = data.slice(data.position(), length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum || !decode(payload, visitor)) {
+                return torn(segment, start);
+            }
+            data.position(data.position() + length);
+        }
+        if (data.hasRemaining()) return torn(segment, data.position());
+        return data.position();
+    }
+
+    private static long torn(Path segment, int offset) {
+        System.err.println("[Journal] Torn record at offset " + offset + " in " + segment.getFileName()
+                + ", ignoring the rest of the segment");
+        return offset;
+    }
+
+    private static boolean decode(ByteBuffer b, Visitor visitor) {
+        try {
+            byte type = b.get();
+            if (type == TICKET) {
+                int ticketId = b.getInt();
+                int passengerId = b.getInt();
+                int trainId = b.getInt();
+                int seats = b.getInt();
+                int origin = b.getInt();
+                int destination = b.getInt();
+                int[] seatNumbers = new int[b.getInt()];
+                for (int i = 0; i < seatNumbers.length; i++) seatNumbers[i] = b.getInt();
+                visitor.ticket(ticketId, passengerId, trainId, seats, origin, destination, seatNumbers);
+                return true;
+            }
+            if (type == PASSENGER) {
+                int id = b.getInt();
+                double balance = b.getDouble();
+                byte[] name = new byte[b.getInt()];
+                b.get(name);
+                visitor.passenger(id, new String(name, StandardCharsets.UTF_8), balance);
+                return true;
+            }
+            return false;
+        } catch (RuntimeException e) {
+            return false; // length fields that do not fit the payload
+        }
+    }
+}
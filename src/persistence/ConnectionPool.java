@@ -0,0 +1,156 @@
+package persistence;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Small fixed-size pool of SQLite connections. Connections are opened lazily,
+ * configured once with WAL mode and the pragmas below, and keep their prepared
+ * statements cached by SQL text, so a hot write is a borrow, bind and execute.
+ *
+ * Borrow with try-with-resources; closing a {@link PooledConnection} returns it to the pool.
+ */
+public class ConnectionPool {
+
+    // Applied to every new connection. WAL lets readers run alongside the single writer;
+    // synchronous=NORMAL is durable across application crashes in WAL mode.
+    private static final String[] PRAGMAS = {
+            "PRAGMA journal_mode=WAL",
+            "PRAGMA synchronous=NORMAL",
+            "PRAGMA busy_timeout=5000",
+            "PRAGMA temp_store=MEMORY",
+            "PRAGMA cache_size=-8000"
+    };
+
+    private static final long BORROW_TIMEOUT_MS = 10_000;
+
+    private final String url;
+    private final int maxSize;
+    private final BlockingQueue<PooledConnection> idle;
+    private final AtomicInteger opened = new AtomicInteger();
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, int maxSize) {
+        this.url = url;
+        this.maxSize = maxSize;
+        this.idle = new ArrayBlockingQueue<>(maxSize);
+    }
+
+    /**
+     * Takes an idle connection, opens a new one if the pool is not full,
+     * or waits for one to be returned.
+     */
+    public PooledConnection borrow() throws SQLException {
+        if (closed) throw new SQLException("Connection pool is closed");
+        PooledConnection pc = idle.poll();
+        if (pc == null) {
+            int n = opened.get();
+            while (n < maxSize) {
+                if (opened.compareAndSet(n, n + 1)) {
+                    try {
+                        return new PooledConnection(open());
+                    } catch (SQLException e) {
+                        opened.decrementAndGet();
+                        throw e;
+                    }
+                }
+                n = opened.get();
+            }
+            try {
+                pc = idle.poll(BORROW_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a database connection");
+            }
+            if (pc == null) throw new SQLException("Timed out waiting for a database connection");
+        }
+        return pc;
+    }
+
+    private Connection open() throws SQLException {
+        Connection conn = DriverManager.getConnection(url);
+        try (Statement st = conn.createStatement()) {
+            for (String pragma : PRAGMAS) st.execute(pragma);
+        }
+        return conn;
+    }
+
+    private void giveBack(PooledConnection pc) {
+        try {
+            // Never hand out a connection with a transaction left open by its last user
+            if (!pc.connection.getAutoCommit()) {
+                pc.connection.rollback();
+                pc.connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            pc.broken = true;
+        }
+        if (closed || pc.broken || !idle.offer(pc)) {
+            pc.discard();
+            opened.decrementAndGet();
+        }
+    }
+
+    /**
+     * Closes idle connections; connections still borrowed are closed when returned.
+     */
+    public void close() {
+        closed = true;
+        PooledConnection pc;
+        while ((pc = idle.poll()) != null) {
+            pc.discard();
+            opened.decrementAndGet();
+        }
+    }
+
+    public int getOpenConnections() { return opened.get(); }
+
+    /**
+     * A borrowed connection with its own prepared-statement cache.
+     * Statements from {@link #prepare} belong to the connection: do not close them.
+     */
+    public class PooledConnection implements AutoCloseable {
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+        private boolean broken;
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        public Connection getConnection() { return connection; }
+
+        public PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement ps = statements.get(sql);
+            if (ps == null) {
+                ps = connection.prepareStatement(sql);
+                statements.put(sql, ps);
+            } else {
+                ps.clearParameters();
+            }
+            return ps;
+        }
+
+        private void discard() {
+            for (PreparedStatement ps : statements.values()) {
+                try { ps.close(); } catch (SQLException ignored) {}
+            }
+            statements.clear();
+            try { connection.close(); } catch (SQLException ignored) {}
+        }
+
+        @Override
+        public void close() {
+            giveBack(this);
+        }
+    }
+}
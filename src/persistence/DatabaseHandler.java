@@ -1,16 +1,110 @@
 package persistence;
 
+import models.Ticket;
 import models.Train;
+import monitoring.BookingMetrics;
+import monitoring.JdbcMetrics;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 /**
  * Handles SQLite database operations for trains and passengers.
+ * Connections come from a shared {@link ConnectionPool} with cached prepared statements.
  */
 public class DatabaseHandler {
 
-    private static final String DB_URL = "jdbc:sqlite:resources/trains.db";
+    private static final String DB_URL = System.getProperty("railway.db.url", "jdbc:sqlite:resources/trains.db");
+    private static final int POOL_SIZE = 4;
+
+    private static final String INSERT_PASSENGER_SQL = "INSERT OR REPLACE INTO passengers(id, name) VALUES (?,?)";
+    private static final String INSERT_TRAIN_SQL =
+            "INSERT OR REPLACE INTO trains(id, name, totalSeats, price, availableSeats, stations) VALUES (?,?,?,?,?,?)";
+    private static final String UPDATE_AVAILABLE_SQL = "UPDATE trains SET availableSeats = ? WHERE id = ?";
+    private static final String INSERT_TICKET_SQL = "INSERT OR REPLACE INTO tickets(id, passengerId, trainId, "
+            + "seats, seatList, originIndex, destinationIndex) VALUES (?,?,?,?,?,?,?)";
+    private static final String LOAD_TRAINS_SQL = "SELECT id, name, totalSeats, price, stations FROM trains";
+    private static final String LOAD_AVAILABLE_SQL = "SELECT id, availableSeats FROM trains WHERE availableSeats IS NOT NULL";
+    // Station names of a multi-leg train, in running order, in one column
+    private static final String STATION_SEPARATOR = "|";
+    // Moves a sequence's high-water mark up by one block (never below the floor) and returns the new mark
+    private static final String RESERVE_IDS_SQL = "INSERT INTO id_blocks(name, next) VALUES (?, ? + ?) "
+            + "ON CONFLICT(name) DO UPDATE SET next = max(next, excluded.next - ?) + ? RETURNING next";
+
+    // Write-behind tuning: queued writes go out after WRITE_BATCH_SIZE rows or WRITE_FLUSH_MILLIS
+    private static final int WRITE_QUEUE_CAPACITY = 10_000;
+    private static final int WRITE_BATCH_SIZE = Integer.getInteger("railway.db.batchSize", 500);
+    private static final long WRITE_FLUSH_MILLIS = Long.getLong("railway.db.flushMillis", 50);
+
+    // Ticket IDs are reserved ID_BLOCK_SIZE at a time; each booking thread takes ID_CHUNK_SIZE from a block
+    private static final int ID_BLOCK_SIZE = Integer.getInteger("railway.ids.blockSize", 1000);
+    private static final int ID_CHUNK_SIZE = 32;
+
+    private static ConnectionPool pool;
+    private static WriteBehindQueue writeQueue;
+    private static boolean shutdownHookAdded;
+
+    // Call timings per operation, published over JMX
+    private static final JdbcMetrics INIT_METRICS = BookingMetrics.forJdbc("initializeDatabase");
+    private static final JdbcMetrics INSERT_PASSENGER_METRICS = BookingMetrics.forJdbc("insertPassenger");
+    private static final JdbcMetrics LOAD_TRAINS_METRICS = BookingMetrics.forJdbc("loadTrains");
+    private static final JdbcMetrics LOAD_AVAILABLE_METRICS = BookingMetrics.forJdbc("loadAvailability");
+    private static final JdbcMetrics RESERVE_IDS_METRICS = BookingMetrics.forJdbc("reserveTicketIds");
+    private static final JdbcMetrics INSERT_TRAIN_METRICS = BookingMetrics.forJdbc("insertTrain");
+    private static final JdbcMetrics WRITE_BEHIND_METRICS = BookingMetrics.forJdbc("writeBehindBatch");
+
+    // Opened on first use so the driver is loaded and the URL property is read first
+    private static synchronized ConnectionPool pool() {
+        if (pool == null) {
+            pool = new ConnectionPool(DB_URL, POOL_SIZE);
+            if (!shutdownHookAdded) {
+                Runtime.getRuntime().addShutdownHook(new Thread(DatabaseHandler::shutdown, "JDBC-Shutdown"));
+                shutdownHookAdded = true;
+            }
+        }
+        return pool;
+    }
+
+    private static synchronized WriteBehindQueue writeQueue() {
+        if (writeQueue == null) {
+            writeQueue = new WriteBehindQueue(pool(), WRITE_QUEUE_CAPACITY, WRITE_BATCH_SIZE,
+                    WRITE_FLUSH_MILLIS, WRITE_BEHIND_METRICS);
+        }
+        return writeQueue;
+    }
+
+    /**
+     * Writes out queued writes, then closes pooled connections.
+     * Runs from a shutdown hook; safe to call more than once.
+     */
+    public static synchronized void shutdown() {
+        if (writeQueue != null) {
+            writeQueue.close();
+            writeQueue = null;
+            System.out.println("[JDBC] Write-behind queue flushed");
+        }
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+
+    /**
+     * Blocks until every write queued so far has been committed.
+     */
+    public static void flushWrites() {
+        WriteBehindQueue queue;
+        synchronized (DatabaseHandler.class) {
+            queue = writeQueue;
+        }
+        if (queue != null) queue.flush();
+    }
 
     public static void initializeDatabase() {
         try {
@@ -19,8 +113,9 @@ public class DatabaseHandler {
             System.err.println("SQLite JDBC driver not found: " + e.getMessage());
         }
         
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             Statement st = conn.createStatement()) {
+        long start = System.nanoTime();
+        try (ConnectionPool.PooledConnection conn = pool().borrow();
+             Statement st = conn.getConnection().createStatement()) {
             
             // Create trains table
             st.executeUpdate("CREATE TABLE IF NOT EXISTS trains(" +
@@ -29,63 +124,217 @@ public class DatabaseHandler {
                     "totalSeats INTEGER, " +
                     "price REAL)");
             
+            // Databases created before seat availability was persisted lack this column
+            if (!hasColumn(st, "trains", "availableSeats")) {
+                st.executeUpdate("ALTER TABLE trains ADD COLUMN availableSeats INTEGER");
+                st.executeUpdate("UPDATE trains SET availableSeats = totalSeats");
+            }
+            
+            // Intermediate stations, e.g. "Chennai|Katpadi|Bengaluru"; NULL for a train sold end to end only
+            if (!hasColumn(st, "trains", "stations")) {
+                st.executeUpdate("ALTER TABLE trains ADD COLUMN stations TEXT");
+            }
+            
             // Create passengers table
             st.executeUpdate("CREATE TABLE IF NOT EXISTS passengers(" +
                     "id INTEGER PRIMARY KEY, " +
                     "name TEXT)");
             
+            // Create tickets table; one row per booking, origin/destination are station indexes
+            st.executeUpdate("CREATE TABLE IF NOT EXISTS tickets(" +
+                    "id INTEGER PRIMARY KEY, " +
+                    "passengerId INTEGER, " +
+                    "trainId INTEGER, " +
+                    "seats INTEGER, " +
+                    "seatList TEXT, " +
+                    "originIndex INTEGER, " +
+                    "destinationIndex INTEGER)");
+            
+            // High-water mark of each ID sequence; everything below it has been handed out
+            st.executeUpdate("CREATE TABLE IF NOT EXISTS id_blocks(" +
+                    "name TEXT PRIMARY KEY, " +
+                    "next INTEGER NOT NULL)");
+            
             System.out.println("[JDBC] Database initialized successfully");
         } catch (SQLException e) {
+            INIT_METRICS.recordError();
             System.err.println("[JDBC] Error initializing database: " + e.getMessage());
+        } finally {
+            INIT_METRICS.record(System.nanoTime() - start);
         }
     }
 
+    private static boolean hasColumn(Statement st, String table, String column) throws SQLException {
+        try (ResultSet rs = st.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) return true;
+            }
+        }
+        return false;
+    }
+
     public static void insertPassenger(int id, String name) {
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement ps = conn.prepareStatement(
-                     "INSERT OR REPLACE INTO passengers(id, name) VALUES (?,?)")) {
+        long start = System.nanoTime();
+        try (ConnectionPool.PooledConnection conn = pool().borrow()) {
+            PreparedStatement ps = conn.prepare(INSERT_PASSENGER_SQL);
             ps.setInt(1, id);
             ps.setString(2, name);
             ps.executeUpdate();
             System.out.println("[JDBC] Inserted passenger " + id + ": " + name);
         } catch (SQLException e) {
+            INSERT_PASSENGER_METRICS.recordError();
             System.err.println("[JDBC] insertPassenger error: " + e.getMessage());
+        } finally {
+            INSERT_PASSENGER_METRICS.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Queues a passenger insert for the write-behind thread and returns at once.
+     * Blocks only if the queue is full.
+     */
+    public static void enqueuePassenger(int id, String name) {
+        writeQueue().submit(INSERT_PASSENGER_SQL, id, name);
+    }
+
+    /**
+     * Queues one row per ticket plus one seat-availability update per train touched.
+     * Each booking costs a constant amount of I/O however long the history grows.
+     */
+    public static void enqueueTickets(List<Ticket> tickets) {
+        WriteBehindQueue queue = writeQueue();
+        Set<Train> trains = new LinkedHashSet<>();
+        for (Ticket t : tickets) {
+            queue.submit(INSERT_TICKET_SQL, t.getTicketId(), t.getPassenger().getPassengerId(),
+                    t.getTrain().getTrainId(), t.getNumberOfSeats(), FileHandler.joinSeats(t.getSeatNumbers()),
+                    t.getOriginIndex(), t.getDestinationIndex());
+            trains.add(t.getTrain());
+        }
+        enqueueAvailability(trains);
+    }
+
+    /**
+     * Queues a seat-availability update for each train, e.g. after recovery rebuilt it.
+     */
+    public static void enqueueAvailability(Collection<Train> trains) {
+        WriteBehindQueue queue = writeQueue();
+        for (Train train : trains) {
+            // Read at write time, so racing bookings cannot leave an older count as the last write
+            queue.submitLatest(UPDATE_AVAILABLE_SQL,
+                    () -> new Object[] {train.getAvailableSeats(), train.getTrainId()});
+        }
+    }
+
+    /**
+     * Ticket ID allocator whose ranges are reserved in the database.
+     */
+    public static TicketIdAllocator ticketIdAllocator() {
+        return new TicketIdAllocator(DatabaseHandler::reserveTicketIds, ID_BLOCK_SIZE, ID_CHUNK_SIZE);
+    }
+
+    /**
+     * Durably reserves {@code size} ticket IDs at or above {@code floor} and returns the
+     * first, or -1 if the database is unavailable. Backs {@link TicketIdAllocator}.
+     */
+    public static long reserveTicketIds(long floor, int size) {
+        long start = System.nanoTime();
+        try (ConnectionPool.PooledConnection conn = pool().borrow()) {
+            PreparedStatement ps = conn.prepare(RESERVE_IDS_SQL);
+            ps.setString(1, "tickets");
+            ps.setLong(2, floor);
+            ps.setInt(3, size);
+            ps.setInt(4, size);
+            ps.setInt(5, size);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) - size : -1;
+            }
+        } catch (SQLException e) {
+            RESERVE_IDS_METRICS.recordError();
+            System.err.println("[JDBC] reserveTicketIds error: " + e.getMessage());
+            return -1;
+        } finally {
+            RESERVE_IDS_METRICS.record(System.nanoTime() - start);
         }
     }
 
     public static List<Train> loadTrains() {
         List<Train> list = new ArrayList<>();
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             Statement st = conn.createStatement();
-             ResultSet rs = st.executeQuery("SELECT id, name, totalSeats, price FROM trains")) {
+        long start = System.nanoTime();
+        try (ConnectionPool.PooledConnection conn = pool().borrow();
+             ResultSet rs = conn.prepare(LOAD_TRAINS_SQL).executeQuery()) {
             
             while (rs.next()) {
                 list.add(new Train(
                         rs.getInt("id"),
                         rs.getString("name"),
                         rs.getInt("totalSeats"),
-                        rs.getDouble("price")
+                        rs.getDouble("price"),
+                        splitStations(rs.getString("stations"))
                 ));
             }
             System.out.println("[JDBC] Loaded " + list.size() + " trains from DB");
         } catch (SQLException e) {
+            LOAD_TRAINS_METRICS.recordError();
             System.err.println("[JDBC] loadTrains error: " + e.getMessage());
+        } finally {
+            LOAD_TRAINS_METRICS.record(System.nanoTime() - start);
         }
         return list;
     }
 
+    /**
+     * End-to-end seat availability last written per train ID, for recovery to cross-check
+     * against the replayed inventory. Empty if the database is unavailable.
+     */
+    public static Map<Integer, Integer> loadAvailability() {
+        Map<Integer, Integer> available = new HashMap<>();
+        long start = System.nanoTime();
+        try (ConnectionPool.PooledConnection conn = pool().borrow();
+             ResultSet rs = conn.prepare(LOAD_AVAILABLE_SQL).executeQuery()) {
+            while (rs.next()) {
+                available.put(rs.getInt("id"), rs.getInt("availableSeats"));
+            }
+        } catch (SQLException e) {
+            LOAD_AVAILABLE_METRICS.recordError();
+            System.err.println("[JDBC] loadAvailability error: " + e.getMessage());
+        } finally {
+            LOAD_AVAILABLE_METRICS.record(System.nanoTime() - start);
+        }
+        return available;
+    }
+
     public static void insertTrain(Train train) {
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement ps = conn.prepareStatement(
-                     "INSERT OR REPLACE INTO trains(id, name, totalSeats, price) VALUES (?,?,?,?)")) {
+        long start = System.nanoTime();
+        try (ConnectionPool.PooledConnection conn = pool().borrow()) {
+            PreparedStatement ps = conn.prepare(INSERT_TRAIN_SQL);
             ps.setInt(1, train.getTrainId());
             ps.setString(2, train.getTrainName());
             ps.setInt(3, train.getTotalSeats());
             ps.setDouble(4, train.getPricePerSeat());
+            ps.setInt(5, train.getAvailableSeats());
+            ps.setString(6, joinStations(train.getStations()));
             ps.executeUpdate();
             System.out.println("[JDBC] Inserted train " + train.getTrainId() + ": " + train.getTrainName());
         } catch (SQLException e) {
+            INSERT_TRAIN_METRICS.recordError();
             System.err.println("[JDBC] insertTrain error: " + e.getMessage());
+        } finally {
+            INSERT_TRAIN_METRICS.record(System.nanoTime() - start);
         }
     }
+
+    // Null (end to end only) when fewer than two stations are stored
+    private static List<String> splitStations(String stations) {
+        if (stations == null || stations.isBlank()) return null;
+        List<String> names = new ArrayList<>();
+        for (String name : stations.split(Pattern.quote(STATION_SEPARATOR))) {
+            if (!name.isBlank()) names.add(name.trim());
+        }
+        return names.size() < 2 ? null : names;
+    }
+
+    // Only trains with intermediate stations store them; the others use the default two
+    private static String joinStations(List<String> stations) {
+        return stations.size() > 2 ? String.join(STATION_SEPARATOR, stations) : null;
+    }
 }
@@ -5,8 +5,10 @@ import models.Ticket;
 import models.Train;
 
 import java.io.*;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntFunction;
 
 public class FileHandler {
 
@@ -23,25 +25,9 @@ public class FileHandler {
     }
 
     public static void loadPassengers(List<Passenger> passengers, String filename) {
-        File file = new File(filename);
-        if (!file.exists()) {
-            System.out.println("[File] " + filename + " not found, starting fresh.");
-            return;
-        }
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 3) {
-                    int id = Integer.parseInt(parts[0]);
-                    String name = parts[1];
-                    double balance = Double.parseDouble(parts[2]);
-                    passengers.add(new Passenger(id, name, balance));
-                }
-            }
-            System.out.println("[File] Passengers loaded from " + filename);
-        } catch (IOException | NumberFormatException e) {
+        try {
+            passengers.addAll(SnapshotReader.readPassengers(Path.of(filename)));
+        } catch (IOException e) {
             System.err.println("[File] loadPassengers error: " + e.getMessage());
         }
     }
@@ -49,10 +35,7 @@ public class FileHandler {
     public static void saveTickets(List<Ticket> tickets, String filename) {
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
             for (Ticket t : tickets) {
-                writer.write(t.getTicketId() + "," 
-                        + t.getPassenger().getPassengerId() + ","
-                        + t.getTrain().getTrainId() + ","
-                        + t.getNumberOfSeats());  // FIXED: was getBookedSeats()
+                writer.write(formatTicket(t));
                 writer.newLine();
             }
             System.out.println("[File] Tickets saved to " + filename);
@@ -61,35 +44,53 @@ public class FileHandler {
         }
     }
 
-    public static List<Ticket> loadTickets(String filename) {
-        List<Ticket> tickets = new ArrayList<>();
-        File file = new File(filename);
-        if (!file.exists()) {
-            System.out.println("[File] " + filename + " not found, starting fresh.");
-            return tickets;
+    /**
+     * Appends tickets to the end of the file in a single buffered write,
+     * leaving existing lines untouched.
+     */
+    public static void appendTickets(List<Ticket> tickets, String filename) {
+        StringBuilder sb = new StringBuilder(tickets.size() * 32);
+        for (Ticket t : tickets) {
+            sb.append(formatTicket(t)).append(System.lineSeparator());
         }
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename, true))) {
+            writer.write(sb.toString());
+            System.out.println("[File] " + tickets.size() + " tickets appended to " + filename);
+        } catch (IOException e) {
+            System.err.println("[File] appendTickets error: " + e.getMessage());
+        }
+    }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 4) {
-                    int ticketId = Integer.parseInt(parts[0]);
-                    int passengerId = Integer.parseInt(parts[1]);
-                    int trainId = Integer.parseInt(parts[2]);
-                    int seats = Integer.parseInt(parts[3]);
-                    
-                    // Note: This creates placeholder objects; for production, 
-                    // you'd look up actual Passenger/Train from services
-                    Passenger p = new Passenger(passengerId, "Unknown", 0);
-                    Train t = new Train(trainId, "Unknown", 0, 0);
-                    tickets.add(new Ticket(ticketId, p, t, seats));
-                }
-            }
-            System.out.println("[File] Tickets loaded from " + filename);
-        } catch (IOException | NumberFormatException e) {
+    /**
+     * Loads tickets against live objects: {@code trains} and {@code passengers} map IDs to the
+     * shared Train and Passenger instances. Large files are parsed in parallel.
+     */
+    public static List<Ticket> loadTickets(String filename, IntFunction<Train> trains, IntFunction<Passenger> passengers) {
+        try {
+            return SnapshotReader.readTickets(Path.of(filename), trains, passengers, true);
+        } catch (IOException e) {
             System.err.println("[File] loadTickets error: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    private static String formatTicket(Ticket t) {
+        return t.getTicketId() + ","
+                + t.getPassenger().getPassengerId() + ","
+                + t.getTrain().getTrainId() + ","
+                + t.getNumberOfSeats() + ","  // FIXED: was getBookedSeats()
+                + joinSeats(t.getSeatNumbers()) + ","
+                + t.getOriginIndex() + ","
+                + t.getDestinationIndex();
+    }
+
+    // Seat numbers are stored as a ';'-separated list in the fifth column
+    static String joinSeats(int[] seats) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < seats.length; i++) {
+            if (i > 0) sb.append(';');
+            sb.append(seats[i]);
         }
-        return tickets;
+        return sb.toString();
     }
 }
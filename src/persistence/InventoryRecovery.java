@@ -0,0 +1,138 @@
+package persistence;
+
+import models.Ticket;
+import models.Train;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rebuilds seat availability after a restart by replaying persisted tickets onto freshly
+ * built trains. The input is the text snapshot with any journal segments already folded
+ * in; torn journal records and malformed snapshot lines were dropped while reading.
+ *
+ * One pass over the tickets, so recovery time is linear in the booking count. A ticket ID
+ * seen twice (a crash between a fold's rename and its segment cleanup) is replayed once.
+ * Each ticket takes back exactly the seats it was issued; tickets written before seat
+ * numbers existed get the lowest free seats instead.
+ *
+ * Only the snapshot is replayed. The TicketStore and the SQLite tickets table are not read
+ * back, so a ticket that reached one of them and not the journal (e.g. because the journal
+ * write failed) is not recovered. The seat availability SQLite keeps per train is compared
+ * with the replayed inventory by {@link #crossCheck}, which reports such drift.
+ */
+public class InventoryRecovery {
+
+    private final List<Ticket> tickets;
+    private final Set<Train> trains = new LinkedHashSet<>();
+    private int duplicates;
+    private int conflicts;
+    private int invalid;
+    private final Set<Train> mismatched = new LinkedHashSet<>();
+
+    private InventoryRecovery(int expected) {
+        this.tickets = new ArrayList<>(expected);
+    }
+
+    /**
+     * Occupies the seats of every ticket on its train. Call before any new booking is taken.
+     * Returns the result, whose {@link #getTickets()} is the input minus dropped records.
+     */
+    public static InventoryRecovery replay(List<Ticket> persisted) {
+        long start = System.nanoTime();
+        InventoryRecovery result = new InventoryRecovery(persisted.size());
+        BitSet seen = new BitSet();
+        for (Ticket t : persisted) {
+            int id = t.getTicketId();
+            if (id <= 0) {
+                result.invalid++;
+                continue;
+            }
+            if (seen.get(id)) {
+                result.duplicates++;
+                continue;
+            }
+            seen.set(id);
+            if (result.apply(t)) {
+                result.tickets.add(t);
+                result.trains.add(t.getTrain());
+            }
+        }
+        System.out.println("[Recovery] Replayed " + result.tickets.size() + " tickets onto "
+                + result.trains.size() + " trains in " + (System.nanoTime() - start) / 1_000_000 + " ms"
+                + (result.duplicates > 0 ? ", " + result.duplicates + " duplicates skipped" : "")
+                + (result.invalid > 0 ? ", " + result.invalid + " invalid records dropped" : ""));
+        if (result.conflicts > 0) {
+            System.err.println("[Recovery] " + result.conflicts
+                    + " tickets hold seats that were already taken or no longer exist; check the snapshot");
+        }
+        return result;
+    }
+
+    // Returns false if the ticket cannot describe a journey on its train
+    private boolean apply(Ticket t) {
+        Train train = t.getTrain();
+        int seats = t.getNumberOfSeats();
+        int[] seatNumbers = t.getSeatNumbers();
+        if (seats <= 0) {
+            invalid++;
+            return false;
+        }
+        try {
+            if (seatNumbers.length == 0) {
+                if (train.reserveSeats(t.getOriginIndex(), t.getDestinationIndex(), seats) == null) conflicts++;
+            } else if (train.restoreSeats(t.getOriginIndex(), t.getDestinationIndex(), seatNumbers) < seatNumbers.length) {
+                conflicts++;
+            }
+            return true;
+        } catch (IllegalArgumentException e) {
+            invalid++;
+            return false;
+        }
+    }
+
+    /**
+     * Compares each train's replayed availability with the count last persisted in SQLite.
+     * The replay wins; trains that disagree are returned so their stored count can be rewritten.
+     */
+    public Set<Train> crossCheck(Collection<Train> fleet, Map<Integer, Integer> persisted) {
+        for (Train train : fleet) {
+            Integer stored = persisted.get(train.getTrainId());
+            if (stored != null && stored != train.getAvailableSeats()) {
+                if (mismatched.size() < 5) {
+                    System.err.println("[Recovery] " + train.getTrainName() + ": database says " + stored
+                            + " seats free, replayed tickets leave " + train.getAvailableSeats());
+                }
+                mismatched.add(train);
+            }
+        }
+        if (!mismatched.isEmpty()) {
+            System.err.println("[Recovery] " + mismatched.size() + " trains disagree with the database's seat"
+                    + " availability (e.g. a crash before queued writes finished); using the replayed counts");
+        }
+        return mismatched;
+    }
+
+    public List<Ticket> getTickets() { return tickets; }
+
+    /**
+     * Trains whose availability changed.
+     */
+    public Set<Train> getTrains() { return trains; }
+
+    public int getDuplicates() { return duplicates; }
+
+    public int getConflicts() { return conflicts; }
+
+    public int getInvalid() { return invalid; }
+
+    /**
+     * Trains whose persisted availability disagreed in {@link #crossCheck}.
+     */
+    public Set<Train> getMismatched() { return mismatched; }
+}
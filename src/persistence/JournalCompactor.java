@@ -0,0 +1,239 @@
+package persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Folds sealed {@link BookingJournal} segments into the text snapshot
+ * ({@code tickets.txt} and {@code passengers.txt}, in the {@link FileHandler} formats).
+ *
+ * A fold appends the journaled records to the snapshot files and fsyncs them, then records
+ * the highest folded segment and the new snapshot lengths in {@code folded.state} (written
+ * atomically), and only then deletes the segments. Folds are idempotent: a later fold cuts
+ * anything a crashed fold appended past the recorded lengths and skips segments at or
+ * below the recorded generation, so no record reaches the snapshot twice. Each fold costs
+ * the size of the folded segments, not of the snapshot. Runs in the background whenever
+ * the active segment passes a size threshold or the interval has elapsed.
+ */
+public class JournalCompactor {
+
+    private static final long POLL_MILLIS = 1_000;
+    private static final Object FOLD_LOCK = new Object();
+
+    private final BookingJournal journal;
+    private final Path ticketsFile;
+    private final Path passengersFile;
+    private final long intervalMillis;
+    private final long thresholdBytes;
+    private ScheduledExecutorService scheduler;
+    private long lastCompaction = System.nanoTime();
+
+    public JournalCompactor(BookingJournal journal, Path ticketsFile, Path passengersFile,
+                            long intervalMillis, long thresholdBytes) {
+        this.journal = journal;
+        this.ticketsFile = ticketsFile;
+        this.passengersFile = passengersFile;
+        this.intervalMillis = intervalMillis;
+        this.thresholdBytes = thresholdBytes;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Journal-Compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::poll, POLL_MILLIS, POLL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background thread, closes the journal and folds every remaining segment.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            if (scheduler != null) {
+                scheduler.shutdown();
+                try {
+                    scheduler.awaitTermination(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                scheduler = null;
+            }
+        }
+        try {
+            journal.close();
+            foldPending(journal.getDirectory(), ticketsFile, passengersFile);
+        } catch (IOException e) {
+            System.err.println("[Journal] Final compaction failed: " + e.getMessage());
+        }
+    }
+
+    private void poll() {
+        try {
+            long bytes = journal.activeBytes();
+            boolean due = System.nanoTime() - lastCompaction >= TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+            if (bytes >= thresholdBytes || (bytes > 0 && due)) {
+                compactNow();
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[Journal] Compaction failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Seals the active segment and folds every sealed segment into the snapshot.
+     * Returns the number of records folded.
+     */
+    public int compactNow() throws IOException {
+        lastCompaction = System.nanoTime();
+        return fold(journal.getDirectory(), journal.rollover(), ticketsFile, passengersFile);
+    }
+
+    /**
+     * Folds every segment in {@code dir} into the snapshot. Only call while no journal
+     * is open on the directory, e.g. on startup to pick up segments left by a crash.
+     */
+    public static int foldPending(Path dir, Path ticketsFile, Path passengersFile) throws IOException {
+        return fold(dir, BookingJournal.segments(dir), ticketsFile, passengersFile);
+    }
+
+    private static int fold(Path dir, List<Path> segments, Path ticketsFile, Path passengersFile) throws IOException {
+        if (segments.isEmpty()) return 0;
+        synchronized (FOLD_LOCK) {
+            long start = System.nanoTime();
+            FoldState state = FoldState.read(dir, ticketsFile, passengersFile);
+            StringBuilder tickets = new StringBuilder();
+            StringBuilder passengers = new StringBuilder();
+            int[] records = new int[1];
+            String nl = System.lineSeparator();
+            BookingJournal.Visitor visitor = new BookingJournal.Visitor() {
+                @Override
+                public void ticket(int ticketId, int passengerId, int trainId, int seats,
+                                   int originIndex, int destinationIndex, int[] seatNumbers) {
+                    tickets.append(ticketId).append(',').append(passengerId).append(',').append(trainId)
+                            .append(',').append(seats).append(',').append(FileHandler.joinSeats(seatNumbers))
+                            .append(',').append(originIndex).append(',').append(destinationIndex).append(nl);
+                    records[0]++;
+                }
+
+                @Override
+                public void passenger(int passengerId, String name, double balance) {
+                    passengers.append(passengerId).append(',').append(name).append(',').append(balance).append(nl);
+                    records[0]++;
+                }
+            };
+            long folded = state.generation;
+            int skipped = 0;
+            for (Path segment : segments) {
+                long generation = BookingJournal.generationOf(segment);
+                if (generation <= state.generation) {
+                    skipped++; // already in the snapshot; a crash came before its deletion
+                    continue;
+                }
+                BookingJournal.read(segment, visitor);
+                folded = Math.max(folded, generation);
+            }
+
+            if (folded > state.generation) {
+                long passengersBytes = appendToSnapshot(passengersFile, state.passengersBytes, passengers);
+                long ticketsBytes = appendToSnapshot(ticketsFile, state.ticketsBytes, tickets);
+                new FoldState(folded, ticketsBytes, passengersBytes).write(dir);
+            }
+            for (Path segment : segments) {
+                Files.deleteIfExists(segment);
+            }
+            System.out.println("[Journal] Folded " + records[0] + " records from " + (segments.size() - skipped)
+                    + " segment(s) in " + (System.nanoTime() - start) / 1_000_000 + " ms"
+                    + (skipped > 0 ? ", " + skipped + " already folded segment(s) removed" : ""));
+            return records[0];
+        }
+    }
+
+    /**
+     * Highest segment generation folded into the snapshot, or 0 if none was.
+     */
+    static long foldedGeneration(Path dir) throws IOException {
+        return FoldState.read(dir, null, null).generation;
+    }
+
+    // Appends in place and fsyncs; bytes past the last completed fold belong to a fold that crashed and are cut first
+    private static long appendToSnapshot(Path snapshot, long committedBytes, CharSequence lines) throws IOException {
+        try (FileChannel out = FileChannel.open(snapshot, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long size = out.size();
+            if (size > committedBytes) {
+                System.err.println("[Journal] Discarding " + (size - committedBytes) + " bytes of "
+                        + snapshot.getFileName() + " left by an interrupted fold");
+                out.truncate(committedBytes);
+            } else if (size < committedBytes) {
+                System.err.println("[Journal] " + snapshot.getFileName() + " is shorter than the last fold left it;"
+                        + " appending to it as it is");
+            }
+            out.position(out.size());
+            ByteBuffer tail = StandardCharsets.UTF_8.encode(lines.toString());
+            while (tail.hasRemaining()) out.write(tail);
+            out.force(false);
+            return out.size();
+        }
+    }
+
+    /**
+     * What the last completed fold left behind: the highest segment generation it folded and
+     * the snapshot lengths after it. Written atomically once the snapshot appends are on disk,
+     * so it is the commit point of a fold.
+     */
+    private static final class FoldState {
+        private static final String FILE = "folded.state";
+
+        final long generation;
+        final long ticketsBytes;
+        final long passengersBytes;
+
+        FoldState(long generation, long ticketsBytes, long passengersBytes) {
+            this.generation = generation;
+            this.ticketsBytes = ticketsBytes;
+            this.passengersBytes = passengersBytes;
+        }
+
+        // Without a state file (first fold, or a snapshot from before this file existed) the snapshots count as committed
+        static FoldState read(Path dir, Path ticketsFile, Path passengersFile) throws IOException {
+            Path file = dir.resolve(FILE);
+            if (Files.exists(file)) {
+                String[] parts = Files.readString(file, StandardCharsets.UTF_8).trim().split(",");
+                try {
+                    return new FoldState(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+                } catch (RuntimeException e) {
+                    throw new IOException("Unreadable " + file + ": " + e.getMessage(), e);
+                }
+            }
+            return new FoldState(0, sizeOf(ticketsFile), sizeOf(passengersFile));
+        }
+
+        void write(Path dir) throws IOException {
+            Path file = dir.resolve(FILE);
+            Path tmp = dir.resolve(FILE + ".tmp");
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer data = StandardCharsets.UTF_8.encode(generation + "," + ticketsBytes + "," + passengersBytes);
+                while (data.hasRemaining()) out.write(data);
+                out.force(false);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        private static long sizeOf(Path file) throws IOException {
+            return file != null && Files.exists(file) ? Files.size(file) : 0;
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package persistence;
+
+import models.Passenger;
+import models.Ticket;
+import models.Train;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Streaming reader for the text snapshot files written by {@link FileHandler} and
+ * {@link JournalCompactor}. Fields are parsed straight out of a read-only mapping of the
+ * file, with no line strings and no {@code split}; only passenger names become strings.
+ *
+ * Large ticket files are cut into chunks at line boundaries and parsed in parallel into
+ * primitive columns. Tickets are then built in file order, with IDs resolved through
+ * the caller's lookups so every ticket shares the real Train and Passenger objects.
+ */
+public class SnapshotReader {
+
+    // Below this size a single thread is faster than splitting the work
+    private static final long PARALLEL_THRESHOLD = 4 << 20;
+
+    public static List<Passenger> readPassengers(Path file) throws IOException {
+        List<Passenger> passengers = new ArrayList<>();
+        MappedByteBuffer data = map(file);
+        if (data == null) return passengers;
+        Cursor c = new Cursor(data, 0, data.limit());
+        int skipped = 0;
+        while (c.hasMore()) {
+            int lineStart = c.pos;
+            try {
+                int id = c.nextInt(',');
+                String name = c.nextString(',');
+                double balance = c.nextDouble();
+                c.endOfLine();
+                passengers.add(new Passenger(id, name, balance));
+            } catch (IllegalStateException e) {
+                if (c.skipLine(lineStart)) skipped++;
+            }
+        }
+        report(file, passengers.size(), "passengers", skipped);
+        return passengers;
+    }
+
+    /**
+     * Reads every ticket, resolving IDs with {@code trains} and {@code passengers}.
+     * Tickets whose train is unknown are skipped, since their seats cannot be placed.
+     */
+    public static List<Ticket> readTickets(Path file, IntFunction<Train> trains,
+                                           IntFunction<Passenger> passengers, boolean parallel) throws IOException {
+        MappedByteBuffer data = map(file);
+        if (data == null) return new ArrayList<>();
+        int[] bounds = chunkBounds(data, parallel && data.limit() >= PARALLEL_THRESHOLD
+                ? Runtime.getRuntime().availableProcessors() : 1);
+
+        TicketColumns[] chunks = IntStream.range(0, bounds.length - 1)
+                .parallel()
+                .mapToObj(i -> parseTickets(data, bounds[i], bounds[i + 1]))
+                .toArray(TicketColumns[]::new);
+
+        int total = 0;
+        int skipped = 0;
+        for (TicketColumns chunk : chunks) {
+            total += chunk.count;
+            skipped += chunk.skipped;
+        }
+        List<Ticket> tickets = new ArrayList<>(total);
+        int unknownTrain = 0;
+        for (TicketColumns chunk : chunks) {
+            for (int i = 0; i < chunk.count; i++) {
+                Train train = trains.apply(chunk.trainId[i]);
+                if (train == null) {
+                    unknownTrain++;
+                    continue;
+                }
+                Passenger passenger = passengers.apply(chunk.passengerId[i]);
+                if (chunk.seatFrom[i] < 0) {
+                    tickets.add(new Ticket(chunk.ticketId[i], passenger, train, chunk.seats[i]));
+                } else {
+                    int[] seatNumbers = Arrays.copyOfRange(chunk.seatPool, chunk.seatFrom[i], chunk.seatTo[i]);
+                    tickets.add(new Ticket(chunk.ticketId[i], passenger, train, chunk.seats[i], seatNumbers,
+                            chunk.origin[i], chunk.destination[i]));
+                }
+            }
+        }
+        if (unknownTrain > 0) {
+            System.err.println("[File] Skipped " + unknownTrain + " tickets for trains that no longer exist");
+        }
+        report(file, tickets.size(), "tickets", skipped);
+        return tickets;
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            System.out.println("[File] " + file + " not found, starting fresh.");
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to map in one piece");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static void report(Path file, int loaded, String what, int skipped) {
+        System.out.println("[File] Loaded " + loaded + " " + what + " from " + file
+                + (skipped > 0 ? " (" + skipped + " malformed lines skipped)" : ""));
+    }
+
+    // Chunk start offsets, each moved forward to just after a newline; the last entry is the end
+    private static int[] chunkBounds(MappedByteBuffer data, int parts) {
+        int size = data.limit();
+        int[] bounds = new int[parts + 1];
+        bounds[parts] = size;
+        for (int i = 1; i < parts; i++) {
+            int pos = Math.max(Math.max(1, bounds[i - 1]), (int) ((long) size * i / parts));
+            while (pos < size && data.get(pos - 1) != '\n') pos++;
+            bounds[i] = pos;
+        }
+        return bounds;
+    }
+
+    private static TicketColumns parseTickets(MappedByteBuffer data, int from, int to) {
+        TicketColumns out = new TicketColumns();
+        Cursor c = new Cursor(data, from, to);
+        while (c.hasMore()) {
+            int lineStart = c.pos;
+            int seatMark = out.seatCount;
+            try {
+                int ticketId = c.nextInt(',');
+                int passengerId = c.nextInt(',');
+                int trainId = c.nextInt(',');
+                int seats = c.nextInt(',');
+                if (c.atLineEnd()) {
+                    // Four-column lines from before seat numbers were recorded
+                    c.endOfLine();
+                    out.add(ticketId, passengerId, trainId, seats, -1, 0, 0);
+                    continue;
+                }
+                int seatStart = out.seatCount;
+                while (!c.at(',')) {
+                    out.addSeat(c.nextInt(';', ','));
+                }
+                c.accept(',');
+                int origin = c.nextInt(',');
+                int destination = c.nextInt(',');
+                c.endOfLine();
+                out.add(ticketId, passengerId, trainId, seats, seatStart, origin, destination);
+            } catch (IllegalStateException e) {
+                out.seatCount = seatMark;
+                if (c.skipLine(lineStart)) out.skipped++;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Reads fields from a byte range of the mapping. Malformed input throws
+     * IllegalStateException, which the callers turn into a skipped line.
+     */
+    private static class Cursor {
+        private final MappedByteBuffer data;
+        private final int end;
+        int pos;
+
+        Cursor(MappedByteBuffer data, int pos, int end) {
+            this.data = data;
+            this.pos = pos;
+            this.end = end;
+        }
+
+        boolean hasMore() {
+            while (pos < end && (data.get(pos) == '\n' || data.get(pos) == '\r')) pos++;
+            return pos < end;
+        }
+
+        boolean at(char ch) {
+            return pos < end && data.get(pos) == ch;
+        }
+
+        boolean atLineEnd() {
+            return pos >= end || data.get(pos) == '\n' || data.get(pos) == '\r';
+        }
+
+        void accept(char ch) {
+            if (at(ch)) pos++;
+        }
+
+        // An int terminated by the separator, a line end, or any of the extra stop characters
+        int nextInt(char separator, char... stops) {
+            boolean negative = at('-');
+            if (negative) pos++;
+            int start = pos;
+            long value = 0;
+            while (pos < end) {
+                int b = data.get(pos) - '0';
+                if (b < 0 || b > 9) break;
+                value = value * 10 + b;
+                if (value > Integer.MAX_VALUE) throw new IllegalStateException("number too large");
+                pos++;
+            }
+            if (pos == start) throw new IllegalStateException("number expected");
+            if (!atLineEnd() && !at(separator)) {
+                boolean stop = false;
+                for (char s : stops) stop |= at(s);
+                if (!stop) throw new IllegalStateException("unexpected character");
+            }
+            accept(separator);
+            return (int) (negative ? -value : value);
+        }
+
+        String nextString(char separator) {
+            int start = pos;
+            while (pos < end && !at(separator) && !atLineEnd()) pos++;
+            if (!at(separator)) throw new IllegalStateException("separator expected");
+            byte[] bytes = new byte[pos - start];
+            data.get(start, bytes);
+            pos++;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        // Plain decimals are parsed in place; exponent forms fall back to Double.parseDouble
+        double nextDouble() {
+            int start = pos;
+            boolean negative = at('-');
+            if (negative) pos++;
+            long mantissa = 0;
+            int scale = 0;
+            boolean digits = false;
+            boolean fraction = false;
+            while (pos < end && !atLineEnd()) {
+                byte b = data.get(pos);
+                if (b >= '0' && b <= '9' && mantissa < Long.MAX_VALUE / 10) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (fraction) scale++;
+                    digits = true;
+                } else if (b == '.' && !fraction) {
+                    fraction = true;
+                } else {
+                    return slowDouble(start);
+                }
+                pos++;
+            }
+            if (!digits) throw new IllegalStateException("number expected");
+            if (mantissa > (1L << 53) || scale > 22) return slowDouble(start); // would not round exactly
+            double value = scale == 0 ? mantissa : mantissa / Math.pow(10, scale);
+            return negative ? -value : value;
+        }
+
+        private double slowDouble(int start) {
+            while (!atLineEnd()) pos++;
+            byte[] bytes = new byte[pos - start];
+            data.get(start, bytes);
+            try {
+                return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                throw new IllegalStateException("bad number");
+            }
+        }
+
+        void endOfLine() {
+            if (!atLineEnd()) throw new IllegalStateException("trailing characters");
+        }
+
+        // Moves past the current line; returns false if the line was blank
+        boolean skipLine(int lineStart) {
+            pos = lineStart;
+            boolean content = false;
+            while (pos < end && data.get(pos) != '\n') {
+                content |= data.get(pos) != '\r';
+                pos++;
+            }
+            return content;
+        }
+    }
+
+    // Parsed ticket fields for one chunk, one array per column
+    private static class TicketColumns {
+        int count;
+        int skipped;
+        int[] ticketId = new int[256];
+        int[] passengerId = new int[256];
+        int[] trainId = new int[256];
+        int[] seats = new int[256];
+        int[] origin = new int[256];
+        int[] destination = new int[256];
+        int[] seatFrom = new int[256];
+        int[] seatTo = new int[256];
+        int[] seatPool = new int[1024];
+        int seatCount;
+
+        // firstSeat is -1 for lines without a seat list; otherwise the seats are seatPool[firstSeat, seatCount)
+        void add(int id, int passenger, int train, int seatsBooked, int firstSeat, int from, int to) {
+            if (count == ticketId.length) grow();
+            ticketId[count] = id;
+            passengerId[count] = passenger;
+            trainId[count] = train;
+            seats[count] = seatsBooked;
+            origin[count] = from;
+            destination[count] = to;
+            seatFrom[count] = firstSeat;
+            seatTo[count] = seatCount;
+            count++;
+        }
+
+        void addSeat(int seat) {
+            if (seatCount == seatPool.length) seatPool = Arrays.copyOf(seatPool, seatCount * 2);
+            seatPool[seatCount++] = seat;
+        }
+
+        private void grow() {
+            int n = ticketId.length * 2;
+            ticketId = Arrays.copyOf(ticketId, n);
+            passengerId = Arrays.copyOf(passengerId, n);
+            trainId = Arrays.copyOf(trainId, n);
+            seats = Arrays.copyOf(seats, n);
+            origin = Arrays.copyOf(origin, n);
+            destination = Arrays.copyOf(destination, n);
+            seatFrom = Arrays.copyOf(seatFrom, n);
+            seatTo = Arrays.copyOf(seatTo, n);
+        }
+    }
+}
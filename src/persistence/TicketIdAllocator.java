@@ -0,0 +1,164 @@
+package persistence;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hi-lo ticket ID generator. Ranges of {@code blockSize} IDs are reserved from a
+ * {@link BlockSource} (durably, in SQLite, for the application) and handed out from memory,
+ * so a restart continues after the last reserved range instead of starting again at 1.
+ *
+ * Platform threads carve small chunks off the shared block and issue IDs from a thread-local
+ * chunk without touching shared state. Virtual threads are short-lived, so a chunk each would
+ * mostly be wasted; they take single IDs from the shared block with one atomic add instead.
+ * IDs are unique and increase per thread, but may leave gaps (unused chunks, restarts).
+ * Only reserved IDs are handed out: if the source keeps failing, {@link #next} throws
+ * {@link IllegalStateException} and the next call asks the source again.
+ */
+public class TicketIdAllocator {
+
+    /**
+     * Reserves {@code size} consecutive IDs, none below {@code floor}, and returns the first.
+     * Returns -1 if the reservation could not be made.
+     */
+    public interface BlockSource {
+        long reserve(long floor, int size);
+    }
+
+    // A reserved range ending before end; next is the first ID not yet handed out
+    private static class Block {
+        final long end;
+        final AtomicLong next;
+
+        Block(long start, long end) {
+            this.end = end;
+            this.next = new AtomicLong(start);
+        }
+    }
+
+    private static final int RESERVE_ATTEMPTS = 3;
+    private static final long RESERVE_BACKOFF_MILLIS = 50;
+
+    private final int blockSize;
+    private final int chunkSize;
+    private final BlockSource source;
+
+    private volatile Block current;
+    private volatile int generation;
+    // A lock rather than synchronized: refills wait on JDBC, which would pin a virtual thread's carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    // Guarded by lock
+    private long floor = 1;
+    private long generationStart = Long.MAX_VALUE;
+
+    // {next, end, generation} of this thread's chunk
+    private final ThreadLocal<long[]> chunks = ThreadLocal.withInitial(() -> new long[] {0, 0, -1});
+
+    public TicketIdAllocator(BlockSource source, int blockSize, int chunkSize) {
+        if (chunkSize <= 0 || blockSize < chunkSize) {
+            throw new IllegalArgumentException("Need 0 < chunkSize <= blockSize");
+        }
+        this.source = source;
+        this.blockSize = blockSize;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Allocator whose ranges live only in this process.
+     */
+    public static TicketIdAllocator inMemory() {
+        return new TicketIdAllocator(memorySource(), 1024, 32);
+    }
+
+    private static BlockSource memorySource() {
+        AtomicLong next = new AtomicLong(1);
+        return (floor, size) -> next.updateAndGet(n -> Math.max(n, floor) + size) - size;
+    }
+
+    public int next() {
+        if (Thread.currentThread().isVirtual()) {
+            while (true) {
+                int gen = generation;
+                long id = take(1);
+                if (gen == generation) return toInt(id);
+            }
+        }
+        long[] chunk = chunks.get();
+        while (chunk[0] >= chunk[1] || chunk[2] != generation) {
+            // Generation read first, so a chunk that raced with advancePast is taken again
+            int gen = generation;
+            long start = take(chunkSize);
+            chunk[0] = start;
+            chunk[1] = start + chunkSize;
+            chunk[2] = gen;
+        }
+        return toInt(chunk[0]++);
+    }
+
+    /**
+     * Makes sure no ID up to {@code highestUsed} is handed out from now on, e.g. after
+     * tickets with those IDs were found on disk. Cheap when nothing outstanding is affected.
+     */
+    public void advancePast(long highestUsed) {
+        lock.lock();
+        try {
+            floor = Math.max(floor, highestUsed + 1);
+            if (highestUsed >= generationStart) {
+                // Some outstanding block or chunk may overlap; drop them all
+                current = null;
+                generationStart = Long.MAX_VALUE;
+                generation++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // First of n consecutive IDs from the shared block, reserving a new block when it runs out
+    private long take(int n) {
+        while (true) {
+            Block b = current;
+            if (b != null) {
+                long id = b.next.getAndAdd(n);
+                if (id + n <= b.end) return id;
+            }
+            refill(b);
+        }
+    }
+
+    private void refill(Block exhausted) {
+        lock.lock();
+        try {
+            if (current != exhausted) return; // another thread already replaced it
+            long start = reserve();
+            floor = start + blockSize;
+            generationStart = Math.min(generationStart, start);
+            current = new Block(start, start + blockSize);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Asks the source a few times, backing off in between; never hands out an unreserved range
+    private long reserve() {
+        for (int attempt = 1; ; attempt++) {
+            long start = source.reserve(floor, blockSize);
+            if (start >= floor) return start;
+            if (attempt == RESERVE_ATTEMPTS) {
+                throw new IllegalStateException("Could not reserve ticket IDs after " + attempt + " attempts");
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(RESERVE_BACKOFF_MILLIS << (attempt - 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while reserving ticket IDs");
+            }
+        }
+    }
+
+    private static int toInt(long id) {
+        if (id > Integer.MAX_VALUE) throw new IllegalStateException("Ticket IDs exhausted");
+        return (int) id;
+    }
+}
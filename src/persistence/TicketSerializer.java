@@ -7,18 +7,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Demonstrates object serialization for tickets alongside your text I/O.
+ * Reads ticket lists that older versions saved with Java serialization, so they can be
+ * imported into the {@link TicketStore}.
  */
 public class TicketSerializer {
 
-    public static void saveSerialized(List<Ticket> tickets, String path) {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(path))) {
-            oos.writeObject(tickets);
-        } catch (IOException e) {
-            System.err.println("[Serialize] saveSerialized error: " + e.getMessage());
-        }
-    }
-
     @SuppressWarnings("unchecked")
     public static List<Ticket> loadSerialized(String path) {
         File f = new File(path);
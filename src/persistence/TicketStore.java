@@ -0,0 +1,194 @@
+package persistence;
+
+import models.Ticket;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binary ticket store of fixed-width records in a memory-mapped file.
+ *
+ * Record layout (16 bytes, little-endian): ticketId, passengerId, trainId, seats.
+ * A ticket lives in the slot at {@code HEADER_BYTES + ticketId * RECORD_BYTES}, so a lookup
+ * by ID is one offset calculation and a read, and adding a ticket never rewrites existing
+ * records. A slot whose ticketId is 0 is empty. The file is mapped in fixed-size chunks,
+ * each only once a ticket lands in it, so ID ranges that were never issued stay unmapped
+ * holes in a sparse file, and the store can hold millions of tickets off the heap.
+ *
+ * Writers to different slots may run concurrently. The ticketId of a slot is written last
+ * with release semantics, and the header count only after that, so a reader that sees an ID
+ * also sees the rest of the record, and a crash never counts a record that was not written.
+ */
+public class TicketStore implements Closeable {
+
+    public static final int RECORD_BYTES = 16;
+    private static final int HEADER_BYTES = 64;
+    private static final int MAGIC = 0x5354_4B54; // "TKTS"
+    private static final int VERSION = 1;
+    private static final int CHUNK_BYTES = 16 << 20; // 1M records; a multiple of RECORD_BYTES
+    private static final int RECORDS_PER_CHUNK = CHUNK_BYTES / RECORD_BYTES;
+
+    // Header: magic, version, record size, then the count and highest ticket ID
+    private static final int COUNT_OFFSET = 16;
+    private static final int HIGHEST_OFFSET = 24;
+
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Receives each stored record during {@link #scan}, read straight from the mapping.
+     */
+    public interface RecordVisitor {
+        void visit(int ticketId, int passengerId, int trainId, int seats);
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final Map<Integer, MappedByteBuffer> chunks = new ConcurrentHashMap<>();
+
+    private TicketStore(FileChannel channel) throws IOException {
+        this.channel = channel;
+        boolean fresh = channel.size() < HEADER_BYTES;
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        if (fresh) {
+            INT.set(header, 0, MAGIC);
+            INT.set(header, 4, VERSION);
+            INT.set(header, 8, RECORD_BYTES);
+        } else if ((int) INT.get(header, 0) != MAGIC || (int) INT.get(header, 8) != RECORD_BYTES) {
+            channel.close();
+            throw new IOException("Not a ticket store, or written with a different record size");
+        } else if ((int) INT.get(header, 4) != VERSION) {
+            channel.close();
+            throw new IOException("Ticket store has layout version " + INT.get(header, 4)
+                    + ", expected " + VERSION + "; move it aside to start a new one");
+        }
+    }
+
+    public static TicketStore open(Path path) throws IOException {
+        return new TicketStore(FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE));
+    }
+
+    /**
+     * Writes the tickets into their slots. Existing records are never moved.
+     */
+    public void putAll(List<Ticket> tickets) throws IOException {
+        for (Ticket t : tickets) {
+            put(t.getTicketId(), t.getPassenger().getPassengerId(), t.getTrain().getTrainId(), t.getNumberOfSeats());
+        }
+    }
+
+    public void put(int ticketId, int passengerId, int trainId, int seats) throws IOException {
+        if (ticketId <= 0) throw new IllegalArgumentException("Ticket IDs start at 1: " + ticketId);
+        MappedByteBuffer chunk = chunkFor(ticketId);
+        int offset = slotOffset(ticketId);
+        boolean added = (int) INT.getAcquire(chunk, offset) == 0;
+        INT.set(chunk, offset + 4, passengerId);
+        INT.set(chunk, offset + 8, trainId);
+        INT.set(chunk, offset + 12, seats);
+        INT.setRelease(chunk, offset, ticketId);
+        if (added) {
+            LONG.getAndAdd(header, COUNT_OFFSET, 1L);
+            long highest = (long) LONG.getVolatile(header, HIGHEST_OFFSET);
+            while (ticketId > highest
+                    && !LONG.compareAndSet(header, HIGHEST_OFFSET, highest, (long) ticketId)) {
+                highest = (long) LONG.getVolatile(header, HIGHEST_OFFSET);
+            }
+        }
+    }
+
+    /**
+     * Reads one record into {@code out} as {ticketId, passengerId, trainId, seats}.
+     * Returns false if no ticket with that ID is stored.
+     */
+    public boolean get(int ticketId, int[] out) throws IOException {
+        if (ticketId <= 0 || ticketId > getHighestTicketId() || !written(chunkIndex(ticketId))) return false;
+        MappedByteBuffer chunk = chunkFor(ticketId);
+        int offset = slotOffset(ticketId);
+        if ((int) INT.getAcquire(chunk, offset) != ticketId) return false;
+        out[0] = ticketId;
+        out[1] = (int) INT.get(chunk, offset + 4);
+        out[2] = (int) INT.get(chunk, offset + 8);
+        out[3] = (int) INT.get(chunk, offset + 12);
+        return true;
+    }
+
+    /**
+     * Visits every stored record in ticket ID order without creating objects per record.
+     */
+    public void scan(RecordVisitor visitor) throws IOException {
+        int highest = getHighestTicketId();
+        if (highest <= 0) return;
+        for (int c = 0; c <= chunkIndex(highest); c++) {
+            if (!written(c)) continue;
+            MappedByteBuffer chunk = chunkFor(c * RECORDS_PER_CHUNK);
+            int last = Math.min(RECORDS_PER_CHUNK - 1, highest - c * RECORDS_PER_CHUNK);
+            for (int i = 0; i <= last; i++) {
+                int offset = i * RECORD_BYTES;
+                int id = (int) INT.getAcquire(chunk, offset);
+                if (id != 0) {
+                    visitor.visit(id, (int) INT.get(chunk, offset + 4), (int) INT.get(chunk, offset + 8),
+                            (int) INT.get(chunk, offset + 12));
+                }
+            }
+        }
+    }
+
+    public long size() { return (long) LONG.getVolatile(header, COUNT_OFFSET); }
+
+    public int getHighestTicketId() { return (int) (long) LONG.getVolatile(header, HIGHEST_OFFSET); }
+
+    /**
+     * Forces written records to disk.
+     */
+    public void flush() {
+        header.force();
+        for (MappedByteBuffer chunk : chunks.values()) chunk.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    private static int chunkIndex(int ticketId) {
+        return ticketId / RECORDS_PER_CHUNK;
+    }
+
+    // Offset of the slot within its chunk
+    private static int slotOffset(int ticketId) {
+        return (ticketId % RECORDS_PER_CHUNK) * RECORD_BYTES;
+    }
+
+    // Whether the chunk was ever mapped for writing, in this run or an earlier one
+    private boolean written(int index) throws IOException {
+        return chunks.containsKey(index) || channel.size() > HEADER_BYTES + (long) index * CHUNK_BYTES;
+    }
+
+    private MappedByteBuffer chunkFor(int ticketId) throws IOException {
+        int index = chunkIndex(ticketId);
+        MappedByteBuffer chunk = chunks.get(index);
+        if (chunk != null) return chunk;
+        synchronized (this) {
+            chunk = chunks.get(index);
+            if (chunk == null) {
+                // Mapping past the end extends the file; skipped chunks stay holes on disk
+                chunk = channel.map(FileChannel.MapMode.READ_WRITE,
+                        HEADER_BYTES + (long) index * CHUNK_BYTES, CHUNK_BYTES);
+                chunks.put(index, chunk);
+            }
+            return chunk;
+        }
+    }
+}
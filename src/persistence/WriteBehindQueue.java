@@ -0,0 +1,280 @@
+package persistence;
+
+import monitoring.JdbcMetrics;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous write-behind for single-row JDBC writes. Callers enqueue a statement and
+ * return immediately; one background thread drains the queue into JDBC batches and
+ * commits each batch as a single transaction, so the caller never waits for a disk sync.
+ *
+ * A batch is written once it holds {@code batchSize} writes or {@code flushIntervalMillis}
+ * after its first write arrived, whichever comes first. When the queue is full,
+ * {@link #submit} blocks until the writer catches up. {@link #close} writes everything
+ * still queued before returning.
+ *
+ * Closing queues a final marker under the same lock that submitters hold while enqueueing,
+ * so nothing is accepted after it; the writer stops only once it has written that marker.
+ */
+public class WriteBehindQueue {
+
+    private final ConnectionPool pool;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final JdbcMetrics metrics;
+    private final BlockingQueue<Write> queue;
+    private final Thread writer;
+    // Submitters hold the read lock while checking closed and enqueueing; close takes the write lock
+    private final ReadWriteLock closing = new ReentrantReadWriteLock();
+    private volatile boolean closed;
+
+    public WriteBehindQueue(ConnectionPool pool, int capacity, int batchSize, long flushIntervalMillis, JdbcMetrics metrics) {
+        this.pool = pool;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.metrics = metrics;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = new Thread(this::drainLoop, "JDBC-WriteBehind");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues one parameterised statement. Blocks while the queue is full.
+     */
+    public void submit(String sql, Object... params) {
+        accept(new Write(sql, params, null, null, false));
+    }
+
+    /**
+     * Queues a statement whose parameters are read when the writer executes it, so the row
+     * gets the latest value (e.g. a live seat count) however the submitting threads interleave.
+     */
+    public void submitLatest(String sql, Supplier<Object[]> params) {
+        accept(new Write(sql, null, params, null, false));
+    }
+
+    /**
+     * Blocks until every write submitted before this call has been committed (or has failed).
+     */
+    public void flush() {
+        CountDownLatch done = new CountDownLatch(1);
+        closing.readLock().lock();
+        try {
+            if (closed) return; // close has already written everything out
+            enqueue(new Write(null, null, null, done, false));
+        } finally {
+            closing.readLock().unlock();
+        }
+        awaitUninterruptibly(done);
+    }
+
+    /**
+     * Stops accepting writes, writes out the queue and stops the writer thread.
+     */
+    public void close() {
+        CountDownLatch done = new CountDownLatch(1);
+        closing.writeLock().lock();
+        try {
+            if (closed) return;
+            closed = true;
+            enqueue(new Write(null, null, null, done, true));
+        } finally {
+            closing.writeLock().unlock();
+        }
+        awaitUninterruptibly(done);
+        try {
+            writer.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getPending() { return queue.size(); }
+
+    private void accept(Write write) {
+        closing.readLock().lock();
+        try {
+            if (closed) throw new IllegalStateException("Write-behind queue is closed");
+            enqueue(write);
+        } finally {
+            closing.readLock().unlock();
+        }
+    }
+
+    private void enqueue(Write write) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(write);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true; // a write must not be dropped half-way through a booking
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    // Runs until it has written the batch ending in close's final marker
+    private void drainLoop() {
+        List<Write> batch = new ArrayList<>(batchSize);
+        boolean last = false;
+        while (!last) {
+            try {
+                Write first = queue.take();
+                batch.add(first);
+                collect(batch);
+            } catch (InterruptedException e) {
+                // Only the final marker stops the writer; anything already taken is still written
+            }
+            if (!batch.isEmpty()) {
+                try {
+                    write(batch);
+                } catch (RuntimeException e) {
+                    System.err.println("[JDBC] Write-behind batch failed: " + e);
+                } finally {
+                    for (Write w : batch) {
+                        if (w.flushed != null) w.flushed.countDown();
+                        last |= w.last;
+                    }
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    // Fills the batch until it is full, a flush is requested or the flush interval runs out
+    private void collect(List<Write> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        while (batch.size() < batchSize && !hasFlush(batch)) {
+            if (queue.drainTo(batch, batchSize - batch.size()) > 0) continue;
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) return;
+            Write next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) return;
+            batch.add(next);
+        }
+    }
+
+    private static boolean hasFlush(List<Write> batch) {
+        return batch.get(batch.size() - 1).flushed != null;
+    }
+
+    private void write(List<Write> batch) {
+        int rows = 0;
+        for (Write w : batch) {
+            if (w.sql != null) rows++;
+        }
+        if (rows == 0) return;
+
+        long start = System.nanoTime();
+        try (ConnectionPool.PooledConnection conn = pool.borrow()) {
+            conn.getConnection().setAutoCommit(false);
+            // Consecutive writes of the same statement go out as one JDBC batch
+            PreparedStatement pending = null;
+            PreparedStatement current = null;
+            try {
+                for (Write w : batch) {
+                    if (w.sql == null) continue;
+                    current = conn.prepare(w.sql);
+                    if (pending != null && pending != current) pending.executeBatch();
+                    bind(current, w.params());
+                    current.addBatch();
+                    pending = current;
+                }
+                if (pending != null) pending.executeBatch();
+                conn.getConnection().commit();
+            } catch (SQLException e) {
+                // The statements are cached on the connection, so rows left in their batches would go out again
+                clearBatch(pending);
+                clearBatch(current);
+                conn.getConnection().rollback();
+                metrics.recordError();
+                System.err.println("[JDBC] Batch of " + rows + " writes rolled back (" + e.getMessage()
+                        + "), retrying one by one");
+                conn.getConnection().setAutoCommit(true);
+                writeOneByOne(conn, batch);
+            }
+        } catch (SQLException e) {
+            metrics.recordError();
+            System.err.println("[JDBC] Lost " + rows + " queued writes: " + e.getMessage());
+        } finally {
+            metrics.record(System.nanoTime() - start);
+        }
+    }
+
+    // Salvages the good rows of a failed batch; each bad row is logged and skipped
+    private void writeOneByOne(ConnectionPool.PooledConnection conn, List<Write> batch) {
+        for (Write w : batch) {
+            if (w.sql == null) continue;
+            try {
+                PreparedStatement ps = conn.prepare(w.sql);
+                bind(ps, w.params());
+                ps.executeUpdate();
+            } catch (SQLException e) {
+                System.err.println("[JDBC] Dropped write (" + w.sql + "): " + e.getMessage());
+            }
+        }
+    }
+
+    private static void clearBatch(PreparedStatement ps) {
+        if (ps == null) return;
+        try {
+            ps.clearBatch();
+            ps.clearParameters();
+        } catch (SQLException e) {
+            System.err.println("[JDBC] Could not clear a failed batch: " + e.getMessage());
+        }
+    }
+
+    private static void bind(PreparedStatement ps, Object[] params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            ps.setObject(i + 1, params[i]);
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    // One queued statement, or a flush marker when sql is null; close's marker is the last one
+    private static class Write {
+        final String sql;
+        final Object[] params;
+        final Supplier<Object[]> latest;
+        final CountDownLatch flushed;
+        final boolean last;
+
+        Write(String sql, Object[] params, Supplier<Object[]> latest, CountDownLatch flushed, boolean last) {
+            this.sql = sql;
+            this.params = params;
+            this.latest = latest;
+            this.flushed = flushed;
+            this.last = last;
+        }
+
+        Object[] params() {
+            return latest != null ? latest.get() : params;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package services;
+
+import exceptions.InvalidBookingException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs bookings off the caller's thread, so a UI thread never waits on seat locks, ID block
+ * reservations or the ticket sink's journal and store writes.
+ *
+ * Each booking runs on its own virtual thread; one blocked on I/O costs no platform thread.
+ * The returned futures complete on that thread, so a UI hops back to its own thread
+ * (e.g. with {@code Platform.runLater}) before touching controls. A rejected booking
+ * completes exceptionally with the {@link InvalidBookingException} as the cause.
+ */
+public class BookingPipeline implements AutoCloseable {
+
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("Booking-", 0).factory());
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * Booking work that may be rejected.
+     */
+    @FunctionalInterface
+    public interface Booking<T> {
+        T book() throws InvalidBookingException;
+    }
+
+    /**
+     * Runs the booking work in the background, e.g. to queue the passenger's row first.
+     */
+    public <T> CompletableFuture<T> submit(Booking<T> booking) {
+        return supply(() -> {
+            try {
+                return booking.book();
+            } catch (InvalidBookingException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Runs other booking work (e.g. a demo that waits for its own threads) in the background.
+     */
+    public CompletableFuture<Void> run(Runnable task) {
+        return supply(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    private <T> CompletableFuture<T> supply(Supplier<T> work) {
+        pending.incrementAndGet();
+        CompletableFuture<T> result;
+        try {
+            result = CompletableFuture.supplyAsync(work, executor);
+        } catch (RuntimeException e) {
+            pending.decrementAndGet();
+            throw e;
+        }
+        return result.whenComplete((value, error) -> pending.decrementAndGet());
+    }
+
+    /**
+     * Bookings and other work submitted and not yet finished. Already lowered when a
+     * returned future's own callbacks run.
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * Stops taking work and waits for bookings in flight, so their tickets reach the sink
+     * before the journal and store are closed.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                System.err.println("[Booking] " + pending.get() + " booking(s) still running at shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
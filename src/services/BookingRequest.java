@@ -0,0 +1,38 @@
+package services;
+
+import models.Passenger;
+import models.Train;
+
+/**
+ * One entry of a bulk booking: who, which train, how many seats, and
+ * optionally the stretch of the route (null stations mean the full route).
+ */
+public class BookingRequest {
+    private final Passenger passenger;
+    private final Train train;
+    private final String origin;
+    private final String destination;
+    private final int seats;
+    private final double costPerSeat;
+
+    public BookingRequest(Passenger passenger, Train train, int seats, double costPerSeat) {
+        this(passenger, train, null, null, seats, costPerSeat);
+    }
+
+    public BookingRequest(Passenger passenger, Train train, String origin, String destination,
+                          int seats, double costPerSeat) {
+        this.passenger = passenger;
+        this.train = train;
+        this.origin = origin;
+        this.destination = destination;
+        this.seats = seats;
+        this.costPerSeat = costPerSeat;
+    }
+
+    public Passenger getPassenger() { return passenger; }
+    public Train getTrain() { return train; }
+    public String getOrigin() { return origin; }
+    public String getDestination() { return destination; }
+    public int getSeats() { return seats; }
+    public double getCostPerSeat() { return costPerSeat; }
+}
@@ -0,0 +1,36 @@
+package services;
+
+import models.Ticket;
+
+/**
+ * Outcome of one {@link BookingRequest}: the issued ticket, or the reason it was rejected.
+ */
+public class BookingResult {
+    private final BookingRequest request;
+    private final Ticket ticket;
+    private final String failureReason;
+
+    private BookingResult(BookingRequest request, Ticket ticket, String failureReason) {
+        this.request = request;
+        this.ticket = ticket;
+        this.failureReason = failureReason;
+    }
+
+    public static BookingResult success(BookingRequest request, Ticket ticket) {
+        return new BookingResult(request, ticket, null);
+    }
+
+    public static BookingResult failure(BookingRequest request, String reason) {
+        return new BookingResult(request, null, reason);
+    }
+
+    public BookingRequest getRequest() { return request; }
+    public Ticket getTicket() { return ticket; }
+    public String getFailureReason() { return failureReason; }
+    public boolean isSuccess() { return ticket != null; }
+
+    @Override
+    public String toString() {
+        return isSuccess() ? "Booked " + ticket : "Rejected: " + failureReason;
+    }
+}
@@ -4,64 +4,389 @@ import models.Train;
 import models.Passenger;
 import models.Ticket;
 import exceptions.InvalidBookingException;
+import monitoring.BookingMetrics;
+import monitoring.TrackedLock;
+import persistence.TicketIdAllocator;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 public class BookingService {
-    private static AtomicInteger ticketCounter = new AtomicInteger(1);
+    private static final String SOLD_OUT = "Not enough available seats!";
+
+    // BookingApp installs one that reserves its ID ranges in the database, so IDs survive restarts
+    private static volatile TicketIdAllocator ticketIds = TicketIdAllocator.inMemory();
     private List<Ticket> bookingHistory;
 
+    // One lock per train: bookings on unrelated trains never wait on each other
+    private final Map<Integer, TrackedLock> trainLocks = new ConcurrentHashMap<>();
+    private final Map<Integer, TrackedLock> passengerLocks = new ConcurrentHashMap<>();
+
+    // Receives each group of tickets issued together (batches, itineraries), e.g. to persist them in one write
+    private volatile Consumer<List<Ticket>> ticketSink = batch -> {};
+
     public BookingService() {
         bookingHistory = Collections.synchronizedList(new ArrayList<>());
     }
 
     // Wallet-less booking: no balance validation/deduction
-    public synchronized Ticket bookTicket(Passenger passenger, Train train, int seats, double costPerSeat) throws InvalidBookingException {
+    public Ticket bookTicket(Passenger passenger, Train train, int seats, double costPerSeat) throws InvalidBookingException {
+        return bookJourney(passenger, train, 0, train.getStations().size() - 1, seats);
+    }
+
+    /**
+     * Books seats for part of the route, between two stations the train calls at.
+     * The seats stay available to other passengers outside that stretch.
+     */
+    public Ticket bookTicket(Passenger passenger, Train train, String origin, String destination,
+                             int seats, double costPerSeat) throws InvalidBookingException {
+        int[] journey;
+        try {
+            journey = resolveJourney(train, origin, destination);
+        } catch (InvalidBookingException e) {
+            BookingMetrics.recordRejection(train, false);
+            throw e;
+        }
+        return bookJourney(passenger, train, journey[0], journey[1], seats);
+    }
+
+    /**
+     * Books many requests at once. Requests are grouped by train and each train's
+     * lock is taken once per group; results come back in request order. Tickets
+     * issued by the batch are handed to the ticket sink in a single call.
+     */
+    public List<BookingResult> bookTickets(List<BookingRequest> requests) {
+        BookingResult[] results = new BookingResult[requests.size()];
+        Map<Integer, List<Integer>> byTrain = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            Train train = requests.get(i).getTrain();
+            if (train == null) {
+                results[i] = BookingResult.failure(requests.get(i), "No train selected!");
+                continue;
+            }
+            byTrain.computeIfAbsent(train.getTrainId(), id -> new ArrayList<>()).add(i);
+        }
+
+        List<Ticket> issued = new ArrayList<>();
+        for (List<Integer> group : byTrain.values()) {
+            Train train = requests.get(group.get(0)).getTrain();
+            List<Ticket> groupTickets = new ArrayList<>(group.size());
+            TrackedLock lock;
+            try {
+                lock = lockTrain(train);
+            } catch (InvalidBookingException e) {
+                for (int i : group) {
+                    results[i] = BookingResult.failure(requests.get(i), e.getMessage());
+                }
+                continue;
+            }
+            try {
+                for (int i : group) {
+                    BookingRequest request = requests.get(i);
+                    long start = System.nanoTime();
+                    try {
+                        Ticket ticket = issueLocked(request);
+                        BookingMetrics.recordBooking(train, ticket.getNumberOfSeats(), System.nanoTime() - start);
+                        groupTickets.add(ticket);
+                        results[i] = BookingResult.success(request, ticket);
+                    } catch (InvalidBookingException e) {
+                        recordRejection(train, e);
+                        results[i] = BookingResult.failure(request, e.getMessage());
+                    }
+                }
+                bookingHistory.addAll(groupTickets);
+            } finally {
+                lock.unlock();
+            }
+            issued.addAll(groupTickets);
+        }
+
+        publishTickets(issued);
+        return Arrays.asList(results);
+    }
+
+    public void setTicketSink(Consumer<List<Ticket>> ticketSink) {
+        this.ticketSink = ticketSink == null ? batch -> {} : ticketSink;
+    }
+
+    /**
+     * Hands tickets issued together to the ticket sink. Call without holding train locks.
+     * The tickets are already sold, so a failing sink is logged and counted rather than
+     * turning the booking into an error.
+     */
+    protected void publishTickets(List<Ticket> tickets) {
+        if (tickets.isEmpty()) return;
+        try {
+            ticketSink.accept(tickets);
+        } catch (RuntimeException e) {
+            BookingMetrics.recordSinkFailure(tickets.size());
+            System.err.println("[Booking] Ticket sink failed for " + tickets.size() + " sold ticket(s) (first ID "
+                    + tickets.get(0).getTicketId() + "): " + e);
+        }
+    }
+
+    /**
+     * Seats taken for a request whose ticket has not been issued yet.
+     */
+    protected static final class Reservation {
+        final Passenger passenger;
+        final Train train;
+        final int origin;
+        final int destination;
+        final int[] seatNumbers;
+
+        Reservation(Passenger passenger, Train train, int origin, int destination, int[] seatNumbers) {
+            this.passenger = passenger;
+            this.train = train;
+            this.origin = origin;
+            this.destination = destination;
+            this.seatNumbers = seatNumbers;
+        }
+
+        // Gives the seats back; caller must hold the train's lock
+        void release() {
+            train.releaseSeats(origin, destination, seatNumbers);
+        }
+    }
+
+    /**
+     * Validates a request and issues its ticket without recording it in history.
+     * Caller must hold {@link #lockFor(Train)} for the request's train.
+     */
+    protected Ticket issueLocked(BookingRequest request) throws InvalidBookingException {
+        return issueOrRelease(reserveLocked(request));
+    }
+
+    /**
+     * Validates a request and takes its seats, without issuing a ticket or using a ticket ID.
+     * Caller must hold {@link #lockFor(Train)} for the request's train.
+     */
+    protected Reservation reserveLocked(BookingRequest request) throws InvalidBookingException {
+        Train train = request.getTrain();
+        if (request.getSeats() <= 0) {
+            throw new InvalidBookingException("Cannot book zero or negative seats!");
+        }
+        int origin = 0;
+        int destination = train.getStations().size() - 1;
+        if (request.getOrigin() != null || request.getDestination() != null) {
+            int[] journey = resolveJourney(train,
+                    request.getOrigin() == null ? train.getStations().get(origin) : request.getOrigin(),
+                    request.getDestination() == null ? train.getStations().get(destination) : request.getDestination());
+            origin = journey[0];
+            destination = journey[1];
+        }
+        return reserve(request.getPassenger(), train, origin, destination, request.getSeats());
+    }
+
+    /**
+     * Issues the ticket for reserved seats, taking the next ticket ID. Fails if no ID can be
+     * had (e.g. none could be reserved); the caller still holds the seats and must release them.
+     */
+    protected Ticket issue(Reservation reservation) throws InvalidBookingException {
+        int ticketId;
+        try {
+            ticketId = ticketIds.next();
+        } catch (IllegalStateException e) {
+            throw new InvalidBookingException("Could not issue a ticket: " + e.getMessage());
+        }
+        return new Ticket(ticketId, reservation.passenger, reservation.train,
+                reservation.seatNumbers.length, reservation.seatNumbers,
+                reservation.origin, reservation.destination);
+    }
+
+    private Ticket issueOrRelease(Reservation reservation) throws InvalidBookingException {
+        try {
+            return issue(reservation);
+        } catch (InvalidBookingException e) {
+            reservation.release();
+            throw e;
+        }
+    }
+
+    // Station names to {origin, destination} indexes on the train
+    private int[] resolveJourney(Train train, String origin, String destination) throws InvalidBookingException {
+        int from = train.stationIndex(origin);
+        int to = train.stationIndex(destination);
+        if (from < 0 || to < 0) {
+            throw new InvalidBookingException(train.getTrainName() + " does not call at "
+                    + (from < 0 ? origin : destination) + "!");
+        }
+        if (from >= to) {
+            throw new InvalidBookingException("Destination must come after origin!");
+        }
+        return new int[] {from, to};
+    }
+
+    private Ticket bookJourney(Passenger passenger, Train train, int origin, int destination, int seats) throws InvalidBookingException {
         if (seats <= 0) {
+            BookingMetrics.recordRejection(train, false);
             throw new InvalidBookingException("Cannot book zero or negative seats!");
         }
 
-        // No balance check anymore
+        long start = System.nanoTime();
+        Ticket ticket;
+        TrackedLock lock = lockTrain(train);
+        try {
+            ticket = bookLocked(passenger, train, origin, destination, seats);
+            BookingMetrics.recordBooking(train, seats, System.nanoTime() - start);
+        } catch (InvalidBookingException e) {
+            recordRejection(train, e);
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+        publishTickets(List.of(ticket));
+        return ticket;
+    }
 
-        boolean booked = train.bookSeats(seats);
-        if (!booked) {
-            throw new InvalidBookingException("Not enough available seats!");
+    /**
+     * Acquires the train's lock, recording how long the caller waited for it.
+     * Returns the lock so the caller can release it. The wait can be interrupted
+     * (e.g. by the deadlock watchdog), in which case the booking fails.
+     */
+    protected TrackedLock lockTrain(Train train) throws InvalidBookingException {
+        TrackedLock lock = lockFor(train);
+        long start = System.nanoTime();
+        acquire(lock);
+        BookingMetrics.recordLockWait(train, System.nanoTime() - start);
+        return lock;
+    }
+
+    /**
+     * Acquires the passenger's lock. Always take it before any train lock.
+     */
+    protected TrackedLock lockPassenger(Passenger passenger) throws InvalidBookingException {
+        TrackedLock lock = passengerLocks.get(passenger.getPassengerId());
+        if (lock == null) {
+            lock = passengerLocks.computeIfAbsent(passenger.getPassengerId(),
+                    id -> new TrackedLock("Passenger " + id + " (" + passenger.getName() + ")"));
         }
+        acquire(lock);
+        return lock;
+    }
 
-        // No balance deduction
+    private static void acquire(TrackedLock lock) throws InvalidBookingException {
+        try {
+            lock.lockInterruptibly();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvalidBookingException("Booking was interrupted while waiting for " + lock.getLabel());
+        }
+    }
+
+    protected void recordRejection(Train train, InvalidBookingException e) {
+        BookingMetrics.recordRejection(train, SOLD_OUT.equals(e.getMessage()));
+    }
+
+    /**
+     * Returns the lock that serializes bookings on the given train.
+     */
+    protected TrackedLock lockFor(Train train) {
+        TrackedLock lock = trainLocks.get(train.getTrainId());
+        if (lock == null) {
+            lock = trainLocks.computeIfAbsent(train.getTrainId(),
+                    id -> new TrackedLock("Train " + id + " (" + train.getTrainName() + ")"));
+        }
+        return lock;
+    }
 
-        Ticket ticket = new Ticket(ticketCounter.getAndIncrement(), passenger, train, seats);
+    /**
+     * Reserves seats and records the ticket. Caller must hold {@link #lockFor(Train)}.
+     */
+    protected Ticket bookLocked(Passenger passenger, Train train, int origin, int destination, int seats) throws InvalidBookingException {
+        Ticket ticket = issueTicket(passenger, train, origin, destination, seats);
         bookingHistory.add(ticket);
         return ticket;
     }
 
+    // Reserves seats and creates the ticket without recording it in history
+    private Ticket issueTicket(Passenger passenger, Train train, int origin, int destination, int seats) throws InvalidBookingException {
+        return issueOrRelease(reserve(passenger, train, origin, destination, seats));
+    }
+
+    private Reservation reserve(Passenger passenger, Train train, int origin, int destination, int seats) throws InvalidBookingException {
+        // No balance check anymore
+
+        int[] seatNumbers = train.reserveSeats(origin, destination, seats);
+        if (seatNumbers == null) {
+            if (train.getFewestFreeOnLegs(origin, destination) >= seats) {
+                throw new InvalidBookingException("No seats are free for the whole journey!");
+            }
+            throw new InvalidBookingException(SOLD_OUT);
+        }
+
+        // No balance deduction
+
+        return new Reservation(passenger, train, origin, destination, seatNumbers);
+    }
+
+    /**
+     * Adds previously persisted tickets to the history without touching seat inventory or
+     * the ticket sink, and makes sure their IDs are never issued again.
+     */
+    public void restoreHistory(List<Ticket> tickets) {
+        int highest = 0;
+        for (Ticket t : tickets) highest = Math.max(highest, t.getTicketId());
+        advanceTicketIds(highest);
+        bookingHistory.addAll(0, tickets); // older than anything booked since startup
+    }
+
+    /**
+     * Makes sure ticket IDs up to {@code highestUsed} are never issued again.
+     */
+    public static void advanceTicketIds(int highestUsed) {
+        ticketIds.advancePast(highestUsed);
+    }
+
+    /**
+     * Replaces the ticket ID source. Call before the first booking.
+     */
+    public static void setTicketIdAllocator(TicketIdAllocator allocator) {
+        ticketIds = allocator;
+    }
+
     public List<Ticket> getBookingHistory() {
         return bookingHistory;
     }
 
-    // Deadlock simulation unchanged
+    /**
+     * Deliberately takes two trains' locks in opposite orders on two threads, one booking for
+     * each passenger, so the threads deadlock. The demo uses its own locks labelled after the
+     * trains rather than the booking locks, so real bookings on those trains keep working. The
+     * locks are interruptible, so a {@link monitoring.DeadlockWatchdog} can break the cycle.
+     */
     public void simulateDeadlock(Passenger passenger1, Train train1, Passenger passenger2, Train train2, int seats, double costPerSeat) {
-        Thread t1 = new Thread(() -> {
-            synchronized (train1) {
-                System.out.println("Thread1 locked " + train1.getTrainName());
-                try { Thread.sleep(100); } catch (InterruptedException e) {}
-                synchronized (passenger1) {
-                    System.out.println("Thread1 locked " + passenger1.getName());
-                }
-            }
-        });
-
-        Thread t2 = new Thread(() -> {
-            synchronized (passenger2) {
-                System.out.println("Thread2 locked " + passenger2.getName());
-                try { Thread.sleep(100); } catch (InterruptedException e) {}
-                synchronized (train2) {
-                    System.out.println("Thread2 locked " + train2.getTrainName());
-                }
-            }
-        });
+        TrackedLock lock1 = new TrackedLock("Train " + train1.getTrainId() + " (" + train1.getTrainName() + ", demo)");
+        TrackedLock lock2 = new TrackedLock("Train " + train2.getTrainId() + " (" + train2.getTrainName() + ", demo)");
+
+        Thread t1 = new Thread(() -> crossLock(passenger1, lock1, lock2), "Deadlock-1");
+        Thread t2 = new Thread(() -> crossLock(passenger2, lock2, lock1), "Deadlock-2");
 
+        t1.setDaemon(true);
+        t2.setDaemon(true);
         t1.start();
         t2.start();
     }
+
+    // Takes first, pauses so the other thread can take its first lock, then waits for second
+    private static void crossLock(Passenger passenger, TrackedLock first, TrackedLock second) {
+        String name = Thread.currentThread().getName();
+        try {
+            acquire(first);
+            try {
+                System.out.println(name + " (" + passenger.getName() + ") locked " + first.getLabel());
+                try { Thread.sleep(100); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+                acquire(second);
+                try {
+                    System.out.println(name + " (" + passenger.getName() + ") locked " + second.getLabel());
+                } finally {
+                    second.unlock();
+                }
+            } finally {
+                first.unlock();
+            }
+        } catch (InvalidBookingException e) {
+            System.out.println(name + " gave up and released its locks: " + e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,172 @@
+package services;
+
+import models.SeatChange;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+
+/**
+ * Sits between the seat-change feed and one slow subscriber. It accepts every event
+ * straight away, on the caller's thread, and keeps at most one pending change per train,
+ * merging new ones into it, so memory is bounded by the number of trains however far the
+ * subscriber falls behind. Pending changes are handed on, oldest train first, as the
+ * subscriber requests them.
+ */
+public class ConflatingProcessor implements Flow.Processor<SeatChange, SeatChange> {
+
+    private final Executor executor;
+    private final Object lock = new Object();
+
+    // Guarded by lock
+    private final Map<Integer, SeatChange> pending = new LinkedHashMap<>();
+    private Flow.Subscriber<? super SeatChange> downstream;
+    private Flow.Subscription upstream;
+    private long demand;
+    private boolean draining;
+    private boolean cancelled;
+    private boolean completed;
+    private Throwable failure;
+
+    public ConflatingProcessor(Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super SeatChange> subscriber) {
+        synchronized (lock) {
+            if (downstream != null) {
+                throw new IllegalStateException("A conflating processor serves a single subscriber");
+            }
+            downstream = subscriber;
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                synchronized (lock) {
+                    if (n <= 0) {
+                        failure = new IllegalArgumentException("Requested " + n + " events");
+                        completed = true;
+                    } else {
+                        demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                    }
+                }
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                Flow.Subscription up;
+                synchronized (lock) {
+                    cancelled = true;
+                    pending.clear();
+                    up = upstream;
+                }
+                if (up != null) up.cancel();
+            }
+        });
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        boolean cancel;
+        synchronized (lock) {
+            upstream = subscription;
+            cancel = cancelled;
+        }
+        if (cancel) subscription.cancel();
+        else subscription.request(Long.MAX_VALUE); // merging is cheap, so never push back on the feed
+    }
+
+    @Override
+    public void onNext(SeatChange change) {
+        synchronized (lock) {
+            if (cancelled) return;
+            pending.merge(change.getTrainId(), change, SeatChange::merge);
+        }
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        synchronized (lock) {
+            failure = error;
+            completed = true;
+        }
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        synchronized (lock) {
+            completed = true;
+        }
+        drain();
+    }
+
+    // Starts a delivery run on the executor unless one is already going
+    private void drain() {
+        synchronized (lock) {
+            if (draining || downstream == null) return;
+            draining = true;
+        }
+        executor.execute(this::deliver);
+    }
+
+    private void deliver() {
+        while (true) {
+            SeatChange next = null;
+            boolean finish = false;
+            Throwable error;
+            synchronized (lock) {
+                error = failure;
+                if (cancelled) {
+                    draining = false;
+                    return;
+                }
+                if (demand > 0 && !pending.isEmpty()) {
+                    Iterator<SeatChange> it = pending.values().iterator();
+                    next = it.next();
+                    it.remove();
+                    demand--;
+                } else if (completed && (pending.isEmpty() || error != null)) {
+                    finish = true;
+                    cancelled = true; // deliver the terminal signal once
+                } else {
+                    draining = false;
+                    return;
+                }
+            }
+            if (finish) {
+                if (error != null) downstream.onError(error);
+                else downstream.onComplete();
+                return;
+            }
+            try {
+                downstream.onNext(next);
+            } catch (Throwable t) {
+                abort(t);
+                return;
+            }
+        }
+    }
+
+    // A subscriber that throws is cancelled and told why, as SubmissionPublisher does
+    private void abort(Throwable error) {
+        Flow.Subscription up;
+        synchronized (lock) {
+            cancelled = true;
+            draining = false;
+            pending.clear();
+            up = upstream;
+        }
+        if (up != null) up.cancel();
+        try {
+            downstream.onError(error);
+        } catch (Throwable ignored) {
+            // Nothing more can be delivered to it anyway
+        }
+    }
+}
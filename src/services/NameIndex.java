@@ -0,0 +1,157 @@
+package services;
+
+import models.Passenger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Passengers sorted by name, ignoring case, for prefix lookups and ordered listing.
+ *
+ * Entries live in one large sorted array plus a small sorted array of recent additions.
+ * An addition copies only the small array; once it passes about sqrt(n) entries the two
+ * are merged, which keeps the cost per addition near O(sqrt n). Bulk loads sort once and
+ * merge once. Readers take the current pair of arrays without locking.
+ *
+ * Entries are Passenger references, so the index costs two array slots at most per
+ * passenger and no strings. Entries whose passenger was since replaced are skipped on
+ * read and dropped at the next merge.
+ */
+public class NameIndex {
+
+    public static final Comparator<Passenger> ORDER = Comparator
+            .comparing(NameIndex::nameOf, String.CASE_INSENSITIVE_ORDER)
+            .thenComparingInt(Passenger::getPassengerId);
+
+    private static final Passenger[] EMPTY = new Passenger[0];
+    private static final int MIN_RECENT = 256;
+
+    private static final class Snapshot {
+        final Passenger[] base;
+        final Passenger[] recent;
+
+        Snapshot(Passenger[] base, Passenger[] recent) {
+            this.base = base;
+            this.recent = recent;
+        }
+    }
+
+    private final Predicate<Passenger> live;
+    private volatile Snapshot current = new Snapshot(EMPTY, EMPTY);
+
+    /**
+     * @param live whether an entry is still the stored passenger for its ID
+     */
+    public NameIndex(Predicate<Passenger> live) {
+        this.live = live;
+    }
+
+    public synchronized void add(Passenger passenger) {
+        Snapshot s = current;
+        Passenger[] recent = s.recent;
+        int at = insertionPoint(recent, passenger);
+        Passenger[] grown = new Passenger[recent.length + 1];
+        System.arraycopy(recent, 0, grown, 0, at);
+        grown[at] = passenger;
+        System.arraycopy(recent, at, grown, at + 1, recent.length - at);
+        if (grown.length > Math.max(MIN_RECENT, (int) Math.sqrt(s.base.length))) {
+            current = new Snapshot(merge(s.base, grown), EMPTY);
+        } else {
+            current = new Snapshot(s.base, grown);
+        }
+    }
+
+    public synchronized void addAll(Collection<Passenger> passengers) {
+        if (passengers.isEmpty()) return;
+        Passenger[] added = passengers.toArray(EMPTY);
+        Arrays.parallelSort(added, ORDER);
+        Snapshot s = current;
+        current = new Snapshot(merge(merge(s.base, s.recent), added), EMPTY);
+    }
+
+    /**
+     * Up to {@code limit} passengers whose name starts with {@code prefix} (ignoring case),
+     * in name order.
+     */
+    public List<Passenger> findByPrefix(String prefix, int limit) {
+        Snapshot s = current;
+        List<Passenger> found = new ArrayList<>(Math.min(limit, 64));
+        int i = lowerBound(s.base, prefix);
+        int j = lowerBound(s.recent, prefix);
+        while (found.size() < limit) {
+            boolean fromBase = i < s.base.length && matches(s.base[i], prefix);
+            boolean fromRecent = j < s.recent.length && matches(s.recent[j], prefix);
+            if (!fromBase && !fromRecent) break;
+            Passenger next;
+            if (fromBase && (!fromRecent || ORDER.compare(s.base[i], s.recent[j]) <= 0)) {
+                next = s.base[i++];
+            } else {
+                next = s.recent[j++];
+            }
+            if (live.test(next)) found.add(next);
+        }
+        return found;
+    }
+
+    /**
+     * Visits every passenger in name order.
+     */
+    public void forEachInOrder(Consumer<Passenger> action) {
+        Snapshot s = current;
+        int i = 0, j = 0;
+        while (i < s.base.length || j < s.recent.length) {
+            Passenger next;
+            if (j == s.recent.length || (i < s.base.length && ORDER.compare(s.base[i], s.recent[j]) <= 0)) {
+                next = s.base[i++];
+            } else {
+                next = s.recent[j++];
+            }
+            if (live.test(next)) action.accept(next);
+        }
+    }
+
+    // Merges two sorted arrays, dropping entries that are no longer live
+    private Passenger[] merge(Passenger[] a, Passenger[] b) {
+        Passenger[] out = new Passenger[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length || j < b.length) {
+            Passenger next;
+            if (j == b.length || (i < a.length && ORDER.compare(a[i], b[j]) <= 0)) {
+                next = a[i++];
+            } else {
+                next = b[j++];
+            }
+            if (live.test(next)) out[n++] = next;
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    private static int insertionPoint(Passenger[] sorted, Passenger p) {
+        int at = Arrays.binarySearch(sorted, p, ORDER);
+        return at < 0 ? -at - 1 : at;
+    }
+
+    // First entry whose name is not below the prefix; names with the prefix follow it contiguously
+    private static int lowerBound(Passenger[] sorted, String prefix) {
+        int lo = 0, hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (String.CASE_INSENSITIVE_ORDER.compare(nameOf(sorted[mid]), prefix) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static boolean matches(Passenger p, String prefix) {
+        return nameOf(p).regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+
+    private static String nameOf(Passenger p) {
+        return p.getName() == null ? "" : p.getName();
+    }
+}
@@ -2,31 +2,100 @@ package services;
 
 import models.Passenger;
 import java.util.*;
+import java.util.function.Consumer;
 
+/**
+ * Thread-safe passenger registry: an int-keyed {@link PassengerTable} for lookups by ID
+ * and a {@link NameIndex} for case-insensitive name prefixes and name-ordered listing.
+ */
 public class PassengerService {
-    private Map<Integer, Passenger> passengerMap;
+    private final PassengerTable passengers = new PassengerTable();
+    private final NameIndex byName = new NameIndex(p -> passengers.get(p.getPassengerId()) == p);
 
     public PassengerService() {
-        passengerMap = new HashMap<>();
         // Sample passengers
-        passengerMap.put(1, new Passenger(1, "Alice", 500.0));
-        passengerMap.put(2, new Passenger(2, "Bob", 300.0));
-        passengerMap.put(3, new Passenger(3, "Charlie", 1000.0));
+        register(new Passenger(1, "Alice", 500.0));
+        register(new Passenger(2, "Bob", 300.0));
+        register(new Passenger(3, "Charlie", 1000.0));
     }
 
     public void addPassenger(Passenger passenger) {
-        passengerMap.put(passenger.getPassengerId(), passenger);
+        register(passenger);
+    }
+
+    // Private, so the constructor does not call a method a subclass could override
+    private void register(Passenger passenger) {
+        if (passengers.put(passenger) != passenger) {
+            byName.add(passenger);
+        }
+    }
+
+    /**
+     * Adds every passenger whose ID is not registered yet, indexing them in one pass.
+     * Returns how many were added.
+     */
+    public int addPassengersIfAbsent(Collection<Passenger> loaded) {
+        passengers.ensureCapacity(loaded.size());
+        List<Passenger> added = new ArrayList<>(loaded.size());
+        for (Passenger p : loaded) {
+            if (passengers.putIfAbsent(p) == null) added.add(p);
+        }
+        byName.addAll(added);
+        return added.size();
     }
 
     public Passenger getPassengerById(int id) {
-        return passengerMap.get(id);
+        return passengers.get(id);
+    }
+
+    /**
+     * Returns the passenger with this ID, registering an "Unknown" placeholder the first
+     * time an ID is seen without a record, so every reference shares one object.
+     */
+    public Passenger resolvePassenger(int id) {
+        Passenger existing = passengers.get(id);
+        if (existing != null) return existing;
+        Passenger[] created = new Passenger[1];
+        Passenger resolved = passengers.computeIfAbsent(id, k -> created[0] = new Passenger(k, "Unknown", 0));
+        if (resolved == created[0]) {
+            byName.add(resolved);
+        }
+        return resolved;
+    }
+
+    /**
+     * Up to {@code limit} passengers whose name starts with {@code prefix}, ignoring case.
+     */
+    public List<Passenger> findByNamePrefix(String prefix, int limit) {
+        return byName.findByPrefix(prefix, limit);
     }
 
+    /**
+     * Every passenger, in name order. Copies the registry; prefer {@link #forEachPassenger}
+     * or {@link #findByNamePrefix} for large registries.
+     */
     public List<Passenger> getAllPassengers() {
-        return new ArrayList<>(passengerMap.values());
+        List<Passenger> all = new ArrayList<>(passengers.size());
+        byName.forEachInOrder(all::add);
+        return all;
+    }
+
+    /**
+     * Visits every passenger without copying the registry.
+     */
+    public void forEachPassenger(Consumer<Passenger> action) {
+        passengers.forEach(action);
+    }
+
+    public int getPassengerCount() {
+        return passengers.size();
+    }
+
+    public int getHighestPassengerId() {
+        return passengers.getHighestId();
     }
 
     public void displayPassengers() {
-        passengerMap.values().forEach(System.out::println);
+        passengers.forEach(System.out::println);
     }
 }
@@ -0,0 +1,150 @@
+package services;
+
+import models.Passenger;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Passengers keyed by ID in an open-addressing hash table: an int[] of keys and a parallel
+ * Passenger[] of values, probed linearly. Keys are never boxed and there is no entry object
+ * per passenger: the table costs 11 to 21 bytes per passenger on top of the objects.
+ * Passengers are added or replaced but never removed, so probing needs no tombstones.
+ *
+ * Lookups and iteration take no lock. Writers are serialized; a slot's key is written
+ * before its value and the value is published with release semantics, so a reader that
+ * sees a value also sees its key. Growing builds new arrays and swaps them in at once.
+ */
+public class PassengerTable {
+
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Passenger[].class);
+    private static final int MIN_CAPACITY = 16;
+
+    private static final class Slots {
+        final int[] keys;
+        final Passenger[] values;
+        final int mask;
+
+        Slots(int capacity) {
+            keys = new int[capacity];
+            values = new Passenger[capacity];
+            mask = capacity - 1;
+        }
+    }
+
+    private volatile Slots slots = new Slots(MIN_CAPACITY);
+    private volatile int size;
+    private volatile int highestId;
+
+    public Passenger get(int id) {
+        Slots s = slots;
+        for (int i = hash(id) & s.mask; ; i = (i + 1) & s.mask) {
+            Passenger p = (Passenger) VALUES.getAcquire(s.values, i);
+            if (p == null) return null;
+            if (s.keys[i] == id) return p;
+        }
+    }
+
+    /**
+     * Stores the passenger under its ID and returns the one it replaced, if any.
+     */
+    public synchronized Passenger put(Passenger passenger) {
+        return insert(passenger.getPassengerId(), passenger, true);
+    }
+
+    /**
+     * Stores the passenger unless its ID is taken; returns the existing passenger, or null.
+     */
+    public synchronized Passenger putIfAbsent(Passenger passenger) {
+        return insert(passenger.getPassengerId(), passenger, false);
+    }
+
+    public Passenger computeIfAbsent(int id, IntFunction<Passenger> create) {
+        Passenger existing = get(id);
+        if (existing != null) return existing;
+        synchronized (this) {
+            existing = get(id);
+            if (existing != null) return existing;
+            Passenger created = create.apply(id);
+            insert(id, created, false);
+            return created;
+        }
+    }
+
+    /**
+     * Makes room for {@code extra} more passengers without growing in between.
+     */
+    public synchronized void ensureCapacity(int extra) {
+        grow(size + extra);
+    }
+
+    public int size() { return size; }
+
+    /**
+     * Highest passenger ID stored, or 0 when empty.
+     */
+    public int getHighestId() { return highestId; }
+
+    /**
+     * Visits every passenger, in no particular order, straight from the table. Passengers
+     * added during the walk may or may not be visited.
+     */
+    public void forEach(Consumer<Passenger> action) {
+        Slots s = slots;
+        for (int i = 0; i < s.values.length; i++) {
+            Passenger p = (Passenger) VALUES.getAcquire(s.values, i);
+            if (p != null) action.accept(p);
+        }
+    }
+
+    // Caller holds the monitor
+    private Passenger insert(int id, Passenger passenger, boolean replace) {
+        grow(size + 1);
+        Slots s = slots;
+        int i = hash(id) & s.mask;
+        while (s.values[i] != null) {
+            if (s.keys[i] == id) {
+                Passenger old = s.values[i];
+                if (replace) VALUES.setRelease(s.values, i, passenger);
+                return old;
+            }
+            i = (i + 1) & s.mask;
+        }
+        s.keys[i] = id;
+        VALUES.setRelease(s.values, i, passenger);
+        size++;
+        if (id > highestId) highestId = id;
+        return null;
+    }
+
+    // Keeps the load factor at or below 3/4; caller holds the monitor
+    private void grow(int needed) {
+        Slots s = slots;
+        if (needed <= s.values.length - (s.values.length >>> 2)) return;
+        int capacity = s.values.length;
+        while (needed > capacity - (capacity >>> 2)) capacity <<= 1;
+        Slots bigger = new Slots(capacity);
+        for (int j = 0; j < s.values.length; j++) {
+            Passenger p = s.values[j];
+            if (p == null) continue;
+            int i = hash(s.keys[j]) & bigger.mask;
+            while (bigger.values[i] != null) i = (i + 1) & bigger.mask;
+            bigger.keys[i] = s.keys[j];
+            bigger.values[i] = p;
+        }
+        slots = bigger; // volatile write publishes the filled arrays
+    }
+
+    // Spreads sequential IDs across the table (murmur3 finalizer)
+    private static int hash(int id) {
+        int h = id;
+        h ^= h >>> 16;
+        h *= 0x85eb_ca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2_ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
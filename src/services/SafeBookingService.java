@@ -1,28 +1,116 @@
 package services;
 
+import exceptions.InvalidBookingException;
+import monitoring.BookingMetrics;
+import monitoring.TrackedLock;
 import models.Passenger;
 import models.Ticket;
 import models.Train;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
 /**
  * Example of deadlock-free booking by locking in a consistent order
  * across two shared resources (Passenger and Train).
+ * No service-wide lock is taken, so bookings on unrelated trains run in parallel.
+ *
+ * Global lock order: the passenger's lock first, then train locks in
+ * ascending trainId. Every path here follows it, so no cycle can form.
  */
 public class SafeBookingService extends BookingService {
 
-    public synchronized Ticket safeBook(Passenger passenger, Train train, int seats, double costPerSeat) throws Exception {
-        Object first, second;
-        // Order locks by identity hash to ensure all threads take locks in the same order
-        if (System.identityHashCode(passenger) < System.identityHashCode(train)) {
-            first = passenger; second = train;
-        } else {
-            first = train; second = passenger;
+    // A connecting journey changes trains at least once and uses at most this many
+    public static final int MIN_ITINERARY_LEGS = 2;
+    public static final int MAX_ITINERARY_LEGS = 5;
+
+    public Ticket safeBook(Passenger passenger, Train train, int seats, double costPerSeat) throws Exception {
+        TrackedLock passengerLock = lockPassenger(passenger);
+        try {
+            // Delegate to base booking which takes the train lock, checks seats and records the ticket
+            return super.bookTicket(passenger, train, seats, costPerSeat);
+        } finally {
+            passengerLock.unlock();
+        }
+    }
+
+    /**
+     * Books a connecting itinerary for one passenger across {@link #MIN_ITINERARY_LEGS} to
+     * {@link #MAX_ITINERARY_LEGS} trains, all or nothing: if any leg cannot be booked, seats
+     * taken by the earlier legs are released and no ticket is recorded. Ticket IDs are only
+     * taken once every leg has its seats, so a rolled-back itinerary leaves no ID gaps.
+     * Returns the tickets in leg order.
+     */
+    public List<Ticket> bookItinerary(List<BookingRequest> legs) throws InvalidBookingException {
+        if (legs.size() < MIN_ITINERARY_LEGS || legs.size() > MAX_ITINERARY_LEGS) {
+            throw new InvalidBookingException("An itinerary needs " + MIN_ITINERARY_LEGS + " to "
+                    + MAX_ITINERARY_LEGS + " trains!");
         }
-        synchronized (first) {
-            synchronized (second) {
-                // Delegate to base booking which already checks seats and records ticket
-                return super.bookTicket(passenger, train, seats, costPerSeat);
+        Passenger passenger = legs.get(0).getPassenger();
+        Map<Integer, Train> trains = new TreeMap<>();
+        for (BookingRequest leg : legs) {
+            if (leg.getPassenger() != passenger) {
+                throw new InvalidBookingException("An itinerary must be for a single passenger!");
+            }
+            if (leg.getTrain() == null) {
+                throw new InvalidBookingException("No train selected!");
+            }
+            trains.put(leg.getTrain().getTrainId(), leg.getTrain());
+        }
+
+        List<Ticket> tickets = new ArrayList<>(legs.size());
+        long start = System.nanoTime();
+        TrackedLock passengerLock = lockPassenger(passenger);
+        try {
+            List<TrackedLock> held = new ArrayList<>(trains.size());
+            try {
+                // TreeMap iterates in ascending trainId: the stable global order
+                for (Train train : trains.values()) {
+                    held.add(lockTrain(train));
+                }
+                List<Reservation> reserved = new ArrayList<>(legs.size());
+                BookingRequest current = null;
+                try {
+                    for (BookingRequest leg : legs) {
+                        current = leg;
+                        reserved.add(reserveLocked(leg));
+                    }
+                } catch (InvalidBookingException e) {
+                    recordRejection(current.getTrain(), e);
+                    for (Reservation r : reserved) {
+                        r.release();
+                    }
+                    throw new InvalidBookingException("Itinerary not booked: " + e.getMessage());
+                }
+                try {
+                    for (Reservation r : reserved) {
+                        tickets.add(issue(r));
+                    }
+                } catch (InvalidBookingException e) {
+                    // IDs already taken by earlier legs are lost, but every seat goes back
+                    recordRejection(legs.get(tickets.size()).getTrain(), e);
+                    for (Reservation r : reserved) {
+                        r.release();
+                    }
+                    tickets.clear();
+                    throw new InvalidBookingException("Itinerary not booked: " + e.getMessage());
+                }
+                getBookingHistory().addAll(tickets);
+                long elapsed = System.nanoTime() - start;
+                for (Ticket t : tickets) {
+                    BookingMetrics.recordBooking(t.getTrain(), t.getNumberOfSeats(), elapsed);
+                }
+            } finally {
+                for (int i = held.size() - 1; i >= 0; i--) {
+                    held.get(i).unlock();
+                }
             }
+        } finally {
+            passengerLock.unlock();
         }
+        publishTickets(tickets);
+        return tickets;
     }
 }
@@ -0,0 +1,100 @@
+package services;
+
+import models.SeatChange;
+import models.Train;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishes a {@link SeatChange} for every change to a train's available seats.
+ *
+ * Events are offered to each subscriber's bounded buffer without waiting, and delivered on
+ * virtual threads, so a slow subscriber never holds up the booking thread that raised the
+ * event: once its buffer is full, further events for it are dropped and counted. Subscribers
+ * that cannot afford to miss changes use {@link #subscribeConflated} instead: the booking
+ * thread merges each change into that subscriber's pending change for the train (a map
+ * update under a short lock), so nothing is dropped and the backlog is at most one change
+ * per train.
+ *
+ * Deltas always add up. Changes to one train raised on different threads may arrive in
+ * either order, so the remaining count of the latest event can lag the train's own count.
+ */
+public class SeatChangeFeed implements Flow.Publisher<SeatChange>, AutoCloseable {
+
+    private static final int BUFFER_CAPACITY = 1024;
+
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("SeatFeed-", 0).factory());
+    private final SubmissionPublisher<SeatChange> publisher = new SubmissionPublisher<>(executor, BUFFER_CAPACITY);
+    private final LongAdder dropped = new LongAdder();
+    private final List<ConflatingProcessor> conflators = new CopyOnWriteArrayList<>();
+
+    /**
+     * Called from {@link Train.AvailabilityListener}s; returns immediately.
+     */
+    public void publish(Train train, int delta, int remaining) {
+        boolean raw = publisher.hasSubscribers();
+        if (!raw && conflators.isEmpty()) return;
+        SeatChange change = new SeatChange(train.getTrainId(), delta, remaining);
+        for (ConflatingProcessor conflator : conflators) {
+            conflator.onNext(change);
+        }
+        if (raw) {
+            publisher.offer(change, (subscriber, item) -> {
+                dropped.increment();
+                return false; // no retry
+            });
+        }
+    }
+
+    /**
+     * Every change, as raised. A subscriber that falls more than the buffer behind loses events.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super SeatChange> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Changes merged per train while the subscriber is busy: each delivery sums every change
+     * to that train since the last one and carries the latest remaining count.
+     */
+    public void subscribeConflated(Flow.Subscriber<? super SeatChange> subscriber) {
+        ConflatingProcessor conflator = new ConflatingProcessor(executor);
+        conflator.subscribe(subscriber);
+        conflators.add(conflator);
+        conflator.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                // Always accepts everything; merging keeps the backlog bounded
+            }
+
+            @Override
+            public void cancel() {
+                conflators.remove(conflator);
+            }
+        });
+    }
+
+    /**
+     * Events dropped because a subscriber's buffer was full.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void close() {
+        publisher.close();
+        for (ConflatingProcessor conflator : conflators) {
+            conflator.onComplete();
+        }
+        conflators.clear();
+    }
+}
@@ -0,0 +1,122 @@
+package services;
+
+import models.Train;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Trains ordered by price per seat, with a max segment tree over their available seats.
+ * "First train at or after position i, below a price bound, with at least N seats" is one
+ * O(log n) descent, so the cheapest match and each further match cost O(log n).
+ *
+ * Prices never change, so the order is fixed when the index is built. Seat counts change
+ * on booking threads, which only queue the train as changed (see {@link #markChanged});
+ * queries fold the queued changes into the tree before answering. Bookings therefore
+ * never wait on the index.
+ */
+public class TrainIndex {
+
+    private static final Comparator<Train> PRICE_ORDER = Comparator
+            .comparingDouble(Train::getPricePerSeat)
+            .thenComparingInt(Train::getTrainId);
+
+    private final Train[] byPrice;
+    private final Map<Train, Integer> positions = new IdentityHashMap<>();
+    private final int leaves;
+    // tree[1] is the root; leaf for position p is tree[leaves + p]; guarded by this
+    private final int[] tree;
+    // Trains whose count changed since the last query, each queued once while its flag is set
+    private final Queue<Train> changed = new ConcurrentLinkedQueue<>();
+    private final AtomicIntegerArray queued;
+
+    public TrainIndex(Collection<Train> trains) {
+        byPrice = trains.toArray(new Train[0]);
+        Arrays.sort(byPrice, PRICE_ORDER);
+        int n = 1;
+        while (n < Math.max(1, byPrice.length)) n <<= 1;
+        leaves = n;
+        tree = new int[2 * n];
+        Arrays.fill(tree, -1);
+        queued = new AtomicIntegerArray(byPrice.length);
+        // Counts are read on first query, so changes made while the index was being built are not lost
+        for (int i = 0; i < byPrice.length; i++) {
+            positions.put(byPrice[i], i);
+            queued.set(i, 1);
+            changed.add(byPrice[i]);
+        }
+    }
+
+    /**
+     * Records that a train's seat count changed. Safe to call from any thread; never blocks.
+     */
+    public void markChanged(Train train) {
+        Integer position = positions.get(train);
+        if (position != null && queued.compareAndSet(position, 0, 1)) {
+            changed.add(train);
+        }
+    }
+
+    public int size() {
+        return byPrice.length;
+    }
+
+    public Train get(int position) {
+        return byPrice[position];
+    }
+
+    /**
+     * Position just past the last train priced at or below {@code maxPrice}.
+     */
+    public int priceBound(double maxPrice) {
+        int lo = 0, hi = byPrice.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (byPrice[mid].getPricePerSeat() <= maxPrice) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Position of the first train in [from, to) with at least {@code minSeats} available,
+     * or -1 if there is none.
+     */
+    public synchronized int nextWithSeats(int from, int to, int minSeats) {
+        applyChanges();
+        if (from >= to) return -1;
+        return firstAtLeast(1, 0, leaves - 1, from, to - 1, minSeats);
+    }
+
+    private void applyChanges() {
+        Train t;
+        while ((t = changed.poll()) != null) {
+            int position = positions.get(t);
+            // Cleared before reading, so a change made after the read queues the train again
+            queued.set(position, 0);
+            set(position, t.getAvailableSeats());
+        }
+    }
+
+    private void set(int position, int seats) {
+        int node = leaves + position;
+        tree[node] = seats;
+        for (node >>>= 1; node > 0; node >>>= 1) {
+            tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    private int firstAtLeast(int node, int lo, int hi, int from, int to, int min) {
+        if (hi < from || lo > to || tree[node] < min) return -1;
+        if (lo == hi) return lo;
+        int mid = (lo + hi) >>> 1;
+        int left = firstAtLeast(2 * node, lo, mid, from, to, min);
+        return left >= 0 ? left : firstAtLeast(2 * node + 1, mid + 1, hi, from, to, min);
+    }
+}
@@ -0,0 +1,63 @@
+package services;
+
+import models.Train;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of a train query. Later pages are only computed when asked for, from the
+ * position where this page stopped, so they reflect availability at that moment.
+ */
+public class TrainPage {
+
+    private final TrainIndex index;
+    private final List<Train> items;
+    private final int resumeAt;
+    private final int to;
+    private final int minSeats;
+    private final int pageSize;
+
+    private TrainPage(TrainIndex index, List<Train> items, int resumeAt, int to, int minSeats, int pageSize) {
+        this.index = index;
+        this.items = items;
+        this.resumeAt = resumeAt;
+        this.to = to;
+        this.minSeats = minSeats;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * First page of trains in price-order positions [0, to) with at least {@code minSeats} free.
+     */
+    static TrainPage first(TrainIndex index, int to, int minSeats, int pageSize) {
+        if (pageSize <= 0) throw new IllegalArgumentException("Page size must be positive");
+        return fetch(index, index.nextWithSeats(0, to, minSeats), to, minSeats, pageSize);
+    }
+
+    private static TrainPage fetch(TrainIndex index, int from, int to, int minSeats, int pageSize) {
+        List<Train> items = new ArrayList<>(Math.min(pageSize, 64));
+        int position = from;
+        while (position >= 0 && items.size() < pageSize) {
+            items.add(index.get(position));
+            position = index.nextWithSeats(position + 1, to, minSeats);
+        }
+        return new TrainPage(index, items, position, to, minSeats, pageSize);
+    }
+
+    public List<Train> getItems() {
+        return items;
+    }
+
+    /**
+     * Whether a matching train followed this page when it was fetched.
+     */
+    public boolean hasNext() {
+        return resumeAt >= 0;
+    }
+
+    public TrainPage next() {
+        if (!hasNext()) return new TrainPage(index, List.of(), -1, to, minSeats, pageSize);
+        return fetch(index, index.nextWithSeats(resumeAt, to, minSeats), to, minSeats, pageSize);
+    }
+}
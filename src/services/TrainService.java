@@ -3,46 +3,119 @@ package services;
 import models.Train;
 import persistence.DatabaseHandler;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Train registry. Availability and price queries go through a {@link TrainIndex}, kept up
+ * to date by an availability listener on every train and rebuilt when trains are added.
+ * The same listener feeds {@link #getSeatChanges()}.
+ */
 public class TrainService {
-    private Map<Integer, Train> trainMap;
+    private final Map<Integer, Train> trainMap = new ConcurrentHashMap<>();
+    private volatile TrainIndex index;
+    private volatile List<Train> byId;
+    private final SeatChangeFeed seatChanges = new SeatChangeFeed();
 
     public TrainService() {
-        trainMap = new HashMap<>();
-        
         // Try loading from database first
         List<Train> dbTrains = DatabaseHandler.loadTrains();
         if (!dbTrains.isEmpty()) {
             System.out.println("[TrainService] Loaded trains from database");
             for (Train t : dbTrains) {
-                trainMap.put(t.getTrainId(), t);
+                register(t);
             }
         } else {
             // Fallback to default trains
             System.out.println("[TrainService] Using default trains");
-            trainMap.put(1, new Train(1, "Express A", 100, 120.0));
-            trainMap.put(2, new Train(2, "Express B", 50, 150.0));
-            trainMap.put(3, new Train(3, "Express C", 75, 90.0));
+            register(new Train(1, "Express A", 100, 120.0));
+            register(new Train(2, "Express B", 50, 150.0));
+            register(new Train(3, "Express C", 75, 90.0));
         }
     }
 
     public void addTrain(Train train) {
-        trainMap.put(train.getTrainId(), train);
+        register(train);
+    }
+
+    // Synchronized with the index build, so a train added meanwhile cannot be left out of it
+    private synchronized void register(Train train) {
+        if (trainMap.put(train.getTrainId(), train) != train) {
+            train.addAvailabilityListener(this::onAvailabilityChanged);
+            index = null; // rebuilt on the next query
+            byId = null;
+        }
+    }
+
+    private void onAvailabilityChanged(Train train, int delta, int remaining) {
+        TrainIndex current = index;
+        if (current != null) current.markChanged(train);
+        seatChanges.publish(train, delta, remaining);
+    }
+
+    /**
+     * Seat changes on every registered train, as a {@link java.util.concurrent.Flow.Publisher}.
+     */
+    public SeatChangeFeed getSeatChanges() {
+        return seatChanges;
+    }
+
+    private TrainIndex index() {
+        TrainIndex current = index;
+        if (current != null) return current;
+        synchronized (this) {
+            if (index == null) index = new TrainIndex(trainMap.values());
+            return index;
+        }
     }
 
     public Train getTrainById(int id) {
         return trainMap.get(id);
     }
 
+    /**
+     * Every train in ID order, read-only. Built once per change to the fleet, not per call.
+     */
     public List<Train> getAllTrains() {
-        return new ArrayList<>(trainMap.values());
+        List<Train> current = byId;
+        if (current != null) return current;
+        synchronized (this) {
+            if (byId == null) {
+                List<Train> sorted = new ArrayList<>(trainMap.values());
+                sorted.sort(Comparator.comparingInt(Train::getTrainId));
+                byId = Collections.unmodifiableList(sorted);
+            }
+            return byId;
+        }
     }
 
+    /**
+     * Trains with at least one free seat, cheapest first.
+     */
     public List<Train> getAvailableTrains() {
-        return trainMap.values().stream()
-                .filter(t -> t.getAvailableSeats() > 0)
-                .collect(Collectors.toList());
+        TrainIndex idx = index();
+        List<Train> available = new ArrayList<>();
+        for (int p = idx.nextWithSeats(0, idx.size(), 1); p >= 0; p = idx.nextWithSeats(p + 1, idx.size(), 1)) {
+            available.add(idx.get(p));
+        }
+        return available;
+    }
+
+    /**
+     * The cheapest train with at least {@code minSeats} free, or null, in O(log n).
+     */
+    public Train findCheapestWithSeats(int minSeats) {
+        TrainIndex idx = index();
+        int p = idx.nextWithSeats(0, idx.size(), minSeats);
+        return p < 0 ? null : idx.get(p);
+    }
+
+    /**
+     * Trains priced at or below {@code maxPrice} with at least {@code minSeats} free,
+     * cheapest first, a page at a time.
+     */
+    public TrainPage findAvailable(double maxPrice, int minSeats, int pageSize) {
+        TrainIndex idx = index();
+        return TrainPage.first(idx, idx.priceBound(maxPrice), minSeats, pageSize);
     }
 
     public void displayTrains() {